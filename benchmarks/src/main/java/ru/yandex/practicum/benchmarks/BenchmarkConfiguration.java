@@ -0,0 +1,40 @@
+package ru.yandex.practicum.benchmarks;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MPADbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import javax.sql.DataSource;
+
+/**
+ * Хранилища и сервисы в том же виде, что и в приложении (с транзакциями), но без веб-слоя,
+ * метрик и автоконфигурации Spring Boot. Источник данных регистрирует {@link BenchmarkDataset}.
+ */
+@Configuration
+@EnableTransactionManagement(proxyTargetClass = true)
+@Import({FilmDbStorage.class, UserDbStorage.class, GenreDbStorage.class, MPADbStorage.class,
+        ReferenceDataCache.class, PopularityLeaderboard.class, FilmService.class, UserService.class})
+public class BenchmarkConfiguration {
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+}
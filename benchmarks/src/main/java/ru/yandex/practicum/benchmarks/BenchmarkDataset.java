@@ -0,0 +1,110 @@
+package ru.yandex.practicum.benchmarks;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import javax.sql.DataSource;
+import java.util.SplittableRandom;
+
+/**
+ * Общая для всех потоков база H2 в памяти с набором данных заданного размера. Размер задаётся
+ * параметром films (-p films=1000,100000,1000000), seed — параметром seed. Схема создаётся теми же
+ * миграциями Flyway, что и в приложении; кэши сервисов строятся уже по заполненной базе.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDataset {
+
+    @Param({"1000", "100000", "1000000"})
+    public int films;
+
+    @Param("42")
+    public long seed;
+
+    private HikariDataSource dataSource;
+    private AnnotationConfigApplicationContext context;
+    private DatasetGenerator.Dataset dataset;
+
+    FilmDbStorage filmStorage;
+    UserDbStorage userStorage;
+    FilmService filmService;
+    UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:bench-" + films + "-" + seed + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(Runtime.getRuntime().availableProcessors() + 1);
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        long started = System.nanoTime();
+        dataset = DatasetGenerator.populate(new JdbcTemplate(dataSource), films, seed);
+        System.out.printf("%nНабор данных: %d фильмов, %d пользователей, %d лайков, %d связей дружбы за %d мс%n",
+                dataset.films(), dataset.users(), count("likes"), count("friendships"),
+                (System.nanoTime() - started) / 1_000_000);
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean("dataSource", DataSource.class, () -> dataSource);
+        context.register(BenchmarkConfiguration.class);
+        context.refresh();
+        filmStorage = context.getBean(FilmDbStorage.class);
+        userStorage = context.getBean(UserDbStorage.class);
+        filmService = context.getBean(FilmService.class);
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // Пул закрывает контекст как владелец бина dataSource; база в памяти удаляется до этого
+        new JdbcTemplate(dataSource).execute("SHUTDOWN");
+        context.close();
+    }
+
+    int randomFilmId(SplittableRandom random) {
+        return dataset.firstFilmId() + random.nextInt(dataset.films());
+    }
+
+    int randomUserId(SplittableRandom random) {
+        return dataset.firstUserId() + random.nextInt(dataset.users());
+    }
+
+    // Отдельный пользователь без лайков и друзей для бенчмарков, которые пишут в базу
+    int createUser(String login) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, DATE '1990-01-01')",
+                login + "@bench.ru", login, login);
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = ?", Integer.class, login);
+    }
+
+    /**
+     * Делает дружбу взаимной: у популярных пользователей появляются длинные списки друзей (тысячи связей
+     * на 1 млн фильмов), на которых и проверяется ограничение обхода. Возвращает число добавленных связей.
+     */
+    int makeFriendshipsMutual() {
+        return new JdbcTemplate(dataSource).update("INSERT INTO friendships (user_id, friend_id, status) " +
+                "SELECT f.friend_id, f.user_id, 'CONFIRMED' FROM friendships f WHERE NOT EXISTS " +
+                "(SELECT 1 FROM friendships r WHERE r.user_id = f.friend_id AND r.friend_id = f.user_id)");
+    }
+
+    // Наибольшее число друзей у одного пользователя
+    int maxFriends() {
+        return new JdbcTemplate(dataSource).queryForObject(
+                "SELECT MAX(c) FROM (SELECT COUNT(*) AS c FROM friendships GROUP BY user_id)", Integer.class);
+    }
+
+    private long count(String table) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Сравнение двух JSON-отчётов JMH (-rf json) между релизами:
+ * java -cp benchmarks.jar ru.yandex.practicum.benchmarks.BenchmarkDiff old.json new.json [порог, %]
+ * Печатает изменение каждого замера и завершается с кодом 1, если хотя бы один замер ухудшился больше порога.
+ */
+public final class BenchmarkDiff {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+
+    private BenchmarkDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Использование: BenchmarkDiff <old.json> <new.json> [порог, %]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, JsonNode> before = read(new File(args[0]));
+        Map<String, JsonNode> after = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : after.entrySet()) {
+            JsonNode current = entry.getValue().path("primaryMetric");
+            JsonNode previous = before.containsKey(entry.getKey())
+                    ? before.get(entry.getKey()).path("primaryMetric") : null;
+            if (previous == null) {
+                System.out.printf("%-90s %12.3f %s (новый)%n", entry.getKey(), current.path("score").asDouble(),
+                        current.path("scoreUnit").asText());
+                continue;
+            }
+            double change = 100.0 * (current.path("score").asDouble() - previous.path("score").asDouble())
+                    / previous.path("score").asDouble();
+            // В режиме пропускной способности хуже — меньше, в режимах времени — больше
+            boolean throughput = "thrpt".equals(entry.getValue().path("mode").asText());
+            double worse = throughput ? -change : change;
+            boolean regression = worse > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-90s %12.3f -> %12.3f %s %+7.1f%%%s%n", entry.getKey(),
+                    previous.path("score").asDouble(), current.path("score").asDouble(),
+                    current.path("scoreUnit").asText(), change, regression ? "  РЕГРЕССИЯ" : "");
+        }
+        before.keySet().stream()
+                .filter(key -> !after.containsKey(key))
+                .forEach(key -> System.out.printf("%-90s (удалён)%n", key));
+
+        System.out.printf("Регрессий больше %.1f%%: %d%n", threshold, regressions);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Ключ замера — имя бенчмарка с параметрами, например FilmStorageBenchmark.getFilmById{films=1000, seed=42}
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            String name = result.path("benchmark").asText();
+            String benchmark = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1);
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            results.put(benchmark + params, result);
+        }
+        return results;
+    }
+}
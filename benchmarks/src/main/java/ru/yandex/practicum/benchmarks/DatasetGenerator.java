@@ -0,0 +1,103 @@
+package ru.yandex.practicum.benchmarks;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Детерминированный по seed набор данных: фильмы с жанрами и MPA, пользователи, лайки и дружба.
+ * Популярность фильмов и число связей пользователей распределены со степенным хвостом: немного фильмов
+ * собирают большую часть лайков, у немногих пользователей много друзей.
+ */
+public final class DatasetGenerator {
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final int GENRES = 6;
+    private static final int MPA_RATINGS = 5;
+
+    private DatasetGenerator() {
+    }
+
+    public record Dataset(int films, int users, int firstFilmId, int firstUserId) {
+    }
+
+    // На каждые 10 фильмов — один пользователь, но не меньше 1000 пользователей
+    public static Dataset populate(JdbcTemplate jdbcTemplate, int films, long seed) {
+        int users = Math.max(1000, films / 10);
+
+        // Фильмы и пользователи без случайных полей — одним INSERT ... SELECT на стороне базы
+        jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id) " +
+                "SELECT 'Film ' || X, 'Description ' || X, DATEADD('DAY', MOD(X * 37, 36500), DATE '1925-01-01'), " +
+                "60 + MOD(X, 120), 1 + MOD(X, ?) FROM SYSTEM_RANGE(1, ?)", MPA_RATINGS, films);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) " +
+                "SELECT 'user' || X || '@bench.ru', 'user' || X, 'User ' || X, " +
+                "DATEADD('DAY', MOD(X * 13, 18000), DATE '1950-01-01') FROM SYSTEM_RANGE(1, ?)", users);
+        int firstFilmId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM films", Integer.class);
+        int firstUserId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Integer.class);
+
+        // У каждого фильма один жанр, у каждого третьего — второй
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) SELECT id, 1 + MOD(id, ?) FROM films",
+                GENRES);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) " +
+                "SELECT id, 1 + MOD(id + 1, ?) FROM films WHERE MOD(id, 3) = 0", GENRES);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        insertPairs(jdbcTemplate, "INSERT INTO likes (film_id, user_id) VALUES (?, ?)",
+                users, 30, random, (r) -> firstFilmId + skewed(r, films), true, firstUserId);
+        insertPairs(jdbcTemplate, "INSERT INTO friendships (user_id, friend_id, status) VALUES (?, ?, 'CONFIRMED')",
+                users, 20, random, (r) -> firstUserId + skewed(r, users), false, firstUserId);
+        jdbcTemplate.update("UPDATE films f SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id)");
+
+        return new Dataset(films, users, firstFilmId, firstUserId);
+    }
+
+    /**
+     * Для каждого пользователя выбирает от 1 до maxPerUser связей (чаще немного) и пишет их пакетами.
+     * Для лайков пара записывается как (фильм, пользователь), для дружбы — как (пользователь, друг).
+     */
+    private static void insertPairs(JdbcTemplate jdbcTemplate, String sql, int users, int maxPerUser,
+                                    SplittableRandom random, TargetPicker picker, boolean targetFirst,
+                                    int firstUserId) {
+        List<int[]> batch = new ArrayList<>(BATCH_SIZE);
+        Set<Integer> targets = new HashSet<>();
+        for (int user = firstUserId; user < firstUserId + users; user++) {
+            int count = 1 + (int) (maxPerUser * Math.pow(random.nextDouble(), 3));
+            targets.clear();
+            for (int i = 0; i < count; i++) {
+                int target = picker.pick(random);
+                if (target != user && targets.add(target)) {
+                    batch.add(targetFirst ? new int[]{target, user} : new int[]{user, target});
+                }
+            }
+            if (batch.size() >= BATCH_SIZE) {
+                flush(jdbcTemplate, sql, batch);
+            }
+        }
+        flush(jdbcTemplate, sql, batch);
+    }
+
+    private static void flush(JdbcTemplate jdbcTemplate, String sql, List<int[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, batch, batch.size(), (ps, pair) -> {
+            ps.setInt(1, pair[0]);
+            ps.setInt(2, pair[1]);
+        });
+        batch.clear();
+    }
+
+    // Индекс в [0, size) со степенным смещением к началу: первые элементы выбираются намного чаще
+    static int skewed(SplittableRandom random, int size) {
+        return (int) (size * Math.pow(random.nextDouble(), 3));
+    }
+
+    @FunctionalInterface
+    private interface TargetPicker {
+        int pick(SplittableRandom random);
+    }
+}
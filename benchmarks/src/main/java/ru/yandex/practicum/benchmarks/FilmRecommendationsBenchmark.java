@@ -0,0 +1,67 @@
+package ru.yandex.practicum.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.LikesIndex;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рекомендации фильмов: запросом к базе по всем общим лайкам и по индексу лайков в памяти
+ * с бюджетом maxPostings. Лайки в наборе данных распределены неравномерно, поэтому у популярных
+ * фильмов списки лайкнувших длиннее бюджета и индекс прореживает их, а не обходит целиком.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FilmRecommendationsBenchmark {
+
+    private static final int SIMILAR_USERS = 50;
+    private static final int LIMIT = 10;
+
+    private SplittableRandom random;
+
+    @State(Scope.Benchmark)
+    public static class Index {
+        @Param("50000")
+        public int maxPostings;
+
+        LikesIndex likesIndex;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkDataset dataset) {
+            likesIndex = new LikesIndex(dataset.filmStorage, maxPostings);
+            likesIndex.rebuild();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDataset dataset) {
+        random = new SplittableRandom(dataset.seed);
+    }
+
+    @Benchmark
+    public List<Integer> recommendFilmsSql(BenchmarkDataset dataset) {
+        return dataset.filmStorage.getRecommendedFilmIds(dataset.randomUserId(random), SIMILAR_USERS, LIMIT);
+    }
+
+    @Benchmark
+    public int[] recommendFilmsIndex(BenchmarkDataset dataset, Index index) {
+        return index.likesIndex.recommendFilms(dataset.randomUserId(random), SIMILAR_USERS, LIMIT);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.FilmView;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FilmServiceBenchmark {
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private SplittableRandom random;
+    private int userId;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDataset dataset) {
+        int thread = THREADS.incrementAndGet();
+        random = new SplittableRandom(dataset.seed + thread);
+        userId = dataset.createUser("bench-liker-" + dataset.films + "-" + thread);
+    }
+
+    @Benchmark
+    public List<FilmView> getPopularFilms(BenchmarkDataset dataset) {
+        return dataset.filmService.getPopularFilms(10, null, null);
+    }
+
+    // С фильтром лидерборд не используется: выборка идёт запросом к базе
+    @Benchmark
+    public List<FilmView> getPopularFilmsByGenre(BenchmarkDataset dataset) {
+        return dataset.filmService.getPopularFilms(10, 1 + random.nextInt(6), null);
+    }
+
+    // Лайк и его отмена в одной операции, чтобы размер таблицы лайков не рос за время замера
+    @Benchmark
+    public void addLike(BenchmarkDataset dataset) {
+        int filmId = dataset.randomFilmId(random);
+        dataset.filmService.addLike(filmId, userId);
+        dataset.filmService.removeLike(filmId, userId);
+    }
+}
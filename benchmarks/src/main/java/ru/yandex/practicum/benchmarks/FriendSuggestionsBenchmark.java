@@ -0,0 +1,70 @@
+package ru.yandex.practicum.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FriendshipGraph;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рекомендации друзей с ограничением обхода: запросом к базе и по графу в памяти. Дружба делается
+ * взаимной, поэтому друзья случайного пользователя чаще всего — популярные пользователи с длинными
+ * списками, и время запроса показывает, ограничен ли второй шаг fanOut строками на друга.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FriendSuggestionsBenchmark {
+
+    private static final int LIMIT = 10;
+
+    @Param("200")
+    public int fanOut;
+
+    private SplittableRandom random;
+
+    @State(Scope.Benchmark)
+    public static class MutualFriendships {
+        FriendshipGraph graph;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkDataset dataset) {
+            int added = dataset.makeFriendshipsMutual();
+            graph = new FriendshipGraph(dataset.userStorage);
+            graph.rebuild();
+            System.out.printf("%nВзаимная дружба: добавлено %d связей, у самого популярного пользователя %d друзей%n",
+                    added, dataset.maxFriends());
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDataset dataset) {
+        random = new SplittableRandom(dataset.seed);
+    }
+
+    @Benchmark
+    public List<User> suggestFriendsSql(BenchmarkDataset dataset, MutualFriendships friendships) {
+        return dataset.userStorage.getFriendSuggestions(dataset.randomUserId(random), fanOut, LIMIT);
+    }
+
+    @Benchmark
+    public int[] suggestFriendsGraph(BenchmarkDataset dataset, MutualFriendships friendships) {
+        return friendships.graph.suggestFriends(dataset.randomUserId(random), fanOut, LIMIT);
+    }
+}
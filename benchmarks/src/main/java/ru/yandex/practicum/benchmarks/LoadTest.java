@@ -0,0 +1,261 @@
+package ru.yandex.practicum.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.zaxxer.hikari.HikariDataSource;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный тест HTTP API. Заполняет базу H2 в памяти детерминированным по seed набором данных
+ * ({@link DatasetGenerator}), запускает приложение в том же процессе на свободном порту и воспроизводит
+ * взвешенную смесь запросов ({@link TrafficMix}). По каждому эндпоинту печатает число запросов, ошибок,
+ * пропускную способность и задержки p50/p99/p999. Сеть нужна только локальная.
+ * <p>
+ * java -cp benchmarks/target/benchmarks.jar ru.yandex.practicum.benchmarks.LoadTest
+ * --films=100000 --threads=16 --warmup=15 --duration=60 [--rate=2000] [--out=result.json] [-- аргументы приложения]
+ * <p>
+ * Без --rate каждый поток шлёт следующий запрос сразу после ответа (закрытая модель). С --rate запросы
+ * идут по расписанию с общей частотой rate в секунду, а задержка считается от запланированного момента
+ * отправки: если приложение не успевает, ожидание в очереди попадает в перцентили.
+ */
+public final class LoadTest {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Options options;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private volatile boolean measuring;
+
+    private LoadTest(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        new LoadTest(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        String url = "jdbc:h2:mem:loadtest-" + options.films + "-" + options.seed + ";DB_CLOSE_DELAY=-1";
+        DatasetGenerator.Dataset dataset;
+        int[] workerUsers = new int[options.threads];
+        // База заполняется до старта приложения, чтобы кэши и рейтинг строились уже по данным
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername("sa");
+            dataSource.setPassword("password");
+            Flyway.configure().dataSource(dataSource).load().migrate();
+            long started = System.nanoTime();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            dataset = DatasetGenerator.populate(jdbcTemplate, options.films, options.seed);
+            for (int i = 0; i < options.threads; i++) {
+                jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) " +
+                        "VALUES (?, ?, ?, DATE '1990-01-01')", "loadtest" + i + "@bench.ru", "loadtest" + i, "Load " + i);
+                workerUsers[i] = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+            }
+            System.out.printf("Набор данных: %d фильмов, %d пользователей (seed %d) за %d мс%n",
+                    dataset.films(), dataset.users(), options.seed, (System.nanoTime() - started) / 1_000_000);
+        }
+
+        List<String> appArgs = new ArrayList<>(List.of("--server.port=0", "--spring.datasource.url=" + url,
+                "--spring.datasource.username=sa", "--spring.datasource.password=password"));
+        appArgs.addAll(options.appArgs);
+        try (ConfigurableApplicationContext context = SpringApplication.run(FilmorateApplication.class,
+                appArgs.toArray(String[]::new))) {
+            URI baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            TrafficMix mix = new TrafficMix(options.mix, baseUri, dataset);
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            System.out.printf("Прогрев %d с, замер %d с, потоков %d, %s%n", options.warmupSeconds,
+                    options.durationSeconds, options.threads,
+                    options.rate > 0 ? "частота " + options.rate + " запросов/с" : "без ограничения частоты");
+            long start = System.nanoTime();
+            long measureFrom = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+            long end = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+            CountDownLatch done = new CountDownLatch(options.threads);
+            for (int i = 0; i < options.threads; i++) {
+                TrafficMix.Worker worker = new TrafficMix.Worker(options.seed * 31 + i, workerUsers[i]);
+                Thread thread = new Thread(() -> {
+                    try {
+                        drive(client, mix, worker, start, end);
+                    } finally {
+                        done.countDown();
+                    }
+                }, "load-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            LockSupport.parkNanos(measureFrom - System.nanoTime());
+            stats.clear();
+            measuring = true;
+            done.await();
+            measuring = false;
+            report();
+        }
+    }
+
+    // Каждый поток шлёт свою долю запросов; при заданной частоте — по своему расписанию со сдвигом
+    private void drive(HttpClient client, TrafficMix mix, TrafficMix.Worker worker, long start, long end) {
+        long intervalNanos = options.rate > 0 ? (long) (1e9 * options.threads / options.rate) : 0;
+        long intended = start;
+        while (true) {
+            if (intervalNanos > 0) {
+                intended += intervalNanos;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                intended = System.nanoTime();
+            }
+            if (intended >= end) {
+                return;
+            }
+            TrafficMix.Request request = mix.next(worker);
+            boolean failed;
+            try {
+                HttpResponse<Void> response = client.send(request.httpRequest(), HttpResponse.BodyHandlers.discarding());
+                failed = response.statusCode() >= 400;
+            } catch (IOException e) {
+                failed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (measuring) {
+                long latencyMicros = (System.nanoTime() - intended) / 1000;
+                stats.computeIfAbsent(request.endpoint(), endpoint -> new EndpointStats())
+                        .record(latencyMicros, failed);
+            }
+        }
+    }
+
+    private void report() throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("films", options.films);
+        json.put("seed", options.seed);
+        json.put("threads", options.threads);
+        json.put("rate", options.rate);
+        json.put("durationSeconds", options.durationSeconds);
+        json.put("mix", options.mix);
+        json.put("appArgs", options.appArgs);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+
+        System.out.printf("%n%-42s %9s %7s %9s %9s %9s %9s %9s%n", "Эндпоинт", "Запросов", "Ошибок",
+                "Запр./с", "p50, мс", "p99, мс", "p999, мс", "max, мс");
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+        long totalErrors = 0;
+        for (Map.Entry<String, EndpointStats> entry : new TreeMap<>(stats).entrySet()) {
+            Histogram histogram = entry.getValue().histogram;
+            long errors = entry.getValue().errors.sum();
+            total.add(histogram);
+            totalErrors += errors;
+            endpoints.put(entry.getKey(), print(entry.getKey(), histogram, errors));
+        }
+        json.put("endpoints", endpoints);
+        json.put("total", print("Всего", total, totalErrors));
+
+        if (options.out != null) {
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(options.out), json);
+            System.out.println("Результат сохранён в " + options.out);
+        }
+    }
+
+    private Map<String, Object> print(String endpoint, Histogram histogram, long errors) {
+        double throughput = (double) histogram.getTotalCount() / options.durationSeconds;
+        double p50 = millis(histogram, 50);
+        double p99 = millis(histogram, 99);
+        double p999 = millis(histogram, 99.9);
+        double max = histogram.getMaxValue() / 1000.0;
+        System.out.printf("%-42s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", endpoint, histogram.getTotalCount(),
+                errors, throughput, p50, p99, p999, max);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", histogram.getTotalCount());
+        result.put("errors", errors);
+        result.put("throughput", throughput);
+        result.put("p50Ms", p50);
+        result.put("p99Ms", p99);
+        result.put("p999Ms", p999);
+        result.put("maxMs", max);
+        return result;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static final class EndpointStats {
+        private final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+
+        private void record(long latencyMicros, boolean failed) {
+            histogram.recordValue(Math.min(Math.max(latencyMicros, 1), MAX_LATENCY_MICROS));
+            if (failed) {
+                errors.increment();
+            }
+        }
+    }
+
+    // Аргументы после -- передаются приложению, например -- --filmorate.likes.write-behind.enabled=true
+    private record Options(int films, long seed, int threads, int warmupSeconds, int durationSeconds, double rate,
+                           String mix, String out, List<String> appArgs) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new LinkedHashMap<>();
+            List<String> appArgs = new ArrayList<>();
+            boolean forApp = false;
+            for (String arg : args) {
+                if (forApp) {
+                    appArgs.add(arg);
+                } else if (arg.equals("--")) {
+                    forApp = true;
+                } else if (arg.startsWith("--") && arg.contains("=")) {
+                    values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+                } else {
+                    throw new IllegalArgumentException("Неизвестный аргумент: " + arg);
+                }
+            }
+            Options options = new Options(
+                    Integer.parseInt(values.getOrDefault("films", "10000")),
+                    Long.parseLong(values.getOrDefault("seed", "42")),
+                    Integer.parseInt(values.getOrDefault("threads", "8")),
+                    Integer.parseInt(values.getOrDefault("warmup", "15")),
+                    Integer.parseInt(values.getOrDefault("duration", "60")),
+                    Double.parseDouble(values.getOrDefault("rate", "0")),
+                    values.getOrDefault("mix", TrafficMix.DEFAULT_WEIGHTS),
+                    values.get("out"),
+                    appArgs);
+            if (options.threads <= 0 || options.durationSeconds <= 0 || options.films <= 0) {
+                throw new IllegalArgumentException("films, threads и duration должны быть положительными.");
+            }
+            return options;
+        }
+    }
+}
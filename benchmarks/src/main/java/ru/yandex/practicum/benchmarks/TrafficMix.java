@@ -0,0 +1,139 @@
+package ru.yandex.practicum.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Взвешенная смесь запросов нагрузочного теста. Фильмы и пользователи выбираются с тем же степенным
+ * смещением, что и при генерации данных: популярные фильмы и «общительные» пользователи запрашиваются чаще.
+ * Веса задаются строкой вида film=30,popular=20 (см. {@link #DEFAULT_WEIGHTS}).
+ */
+public final class TrafficMix {
+
+    public static final String DEFAULT_WEIGHTS =
+            "film=30,popular=20,popular-genre=5,films-page=10,friends=15,common-friends=10,recommendations=5,like=5";
+
+    private static final int GENRES = 6;
+    private static final int PAGE_SIZE = 50;
+    // Сколько лайков держит пользователь потока, прежде чем начать их снимать
+    private static final int MAX_LIKES_PER_WORKER = 50;
+
+    private final String[] names;
+    private final int[] cumulativeWeights;
+    private final URI baseUri;
+    private final DatasetGenerator.Dataset dataset;
+
+    public TrafficMix(String weights, URI baseUri, DatasetGenerator.Dataset dataset) {
+        Map<String, Integer> parsed = new LinkedHashMap<>();
+        for (String entry : weights.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2 || !isKnown(parts[0])) {
+                throw new IllegalArgumentException("Неизвестный элемент смеси запросов: " + entry);
+            }
+            parsed.put(parts[0], Integer.parseInt(parts[1]));
+        }
+        this.names = parsed.keySet().toArray(String[]::new);
+        this.cumulativeWeights = new int[names.length];
+        int total = 0;
+        for (int i = 0; i < names.length; i++) {
+            total += parsed.get(names[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Сумма весов смеси запросов должна быть положительной.");
+        }
+        this.baseUri = baseUri;
+        this.dataset = dataset;
+    }
+
+    /**
+     * Следующий запрос потока. Лайки ставит и снимает собственный пользователь потока, поэтому
+     * запросы на запись не конфликтуют между потоками и не получают 400 за повторный лайк.
+     */
+    public Request next(Worker worker) {
+        SplittableRandom random = worker.random;
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = 0;
+        while (cumulativeWeights[index] <= pick) {
+            index++;
+        }
+        return switch (names[index]) {
+            case "film" -> get("GET /films/{id}", "/films/" + film(random));
+            case "popular" -> get("GET /films/popular", "/films/popular?count=10");
+            case "popular-genre" -> get("GET /films/popular?genreId",
+                    "/films/popular?count=10&genreId=" + (1 + random.nextInt(GENRES)));
+            case "films-page" -> get("GET /films?after&limit", "/films?after="
+                    + (dataset.firstFilmId() + random.nextInt(dataset.films())) + "&limit=" + PAGE_SIZE);
+            case "friends" -> get("GET /users/{id}/friends", "/users/" + user(random) + "/friends");
+            case "common-friends" -> get("GET /users/{id}/friends/common/{otherId}",
+                    "/users/" + user(random) + "/friends/common/" + user(random));
+            case "recommendations" -> get("GET /users/{id}/recommendations",
+                    "/users/" + user(random) + "/recommendations");
+            case "like" -> like(worker);
+            default -> throw new IllegalStateException(names[index]);
+        };
+    }
+
+    private Request like(Worker worker) {
+        if (worker.liked.size() >= MAX_LIKES_PER_WORKER) {
+            int filmId = worker.liked.pollFirst();
+            worker.likedSet.remove(filmId);
+            return new Request("DELETE /films/{id}/like/{userId}", HttpRequest.newBuilder(
+                    baseUri.resolve("/films/" + filmId + "/like/" + worker.userId)).DELETE().build());
+        }
+        int filmId = film(worker.random);
+        while (!worker.likedSet.add(filmId)) {
+            filmId = film(worker.random);
+        }
+        worker.liked.addLast(filmId);
+        return new Request("PUT /films/{id}/like/{userId}", HttpRequest.newBuilder(
+                baseUri.resolve("/films/" + filmId + "/like/" + worker.userId))
+                .PUT(HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    private Request get(String endpoint, String path) {
+        return new Request(endpoint, HttpRequest.newBuilder(baseUri.resolve(path)).GET().build());
+    }
+
+    private int film(SplittableRandom random) {
+        return dataset.firstFilmId() + DatasetGenerator.skewed(random, dataset.films());
+    }
+
+    private int user(SplittableRandom random) {
+        return dataset.firstUserId() + DatasetGenerator.skewed(random, dataset.users());
+    }
+
+    private static boolean isKnown(String name) {
+        for (String entry : DEFAULT_WEIGHTS.split(",")) {
+            if (entry.startsWith(name + "=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public record Request(String endpoint, HttpRequest httpRequest) {
+    }
+
+    /**
+     * Состояние одного потока нагрузки: свой генератор случайных чисел (детерминированный по seed)
+     * и свой пользователь для лайков.
+     */
+    public static final class Worker {
+        private final SplittableRandom random;
+        private final int userId;
+        private final ArrayDeque<Integer> liked = new ArrayDeque<>();
+        private final Set<Integer> likedSet = new HashSet<>();
+
+        public Worker(long seed, int userId) {
+            this.random = new SplittableRandom(seed);
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class UserServiceBenchmark {
+
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDataset dataset) {
+        random = new SplittableRandom(dataset.seed);
+    }
+
+    @Benchmark
+    public List<User> getFriends(BenchmarkDataset dataset) {
+        return dataset.userService.getFriends(dataset.randomUserId(random));
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends(BenchmarkDataset dataset) {
+        return dataset.userService.getCommonFriends(dataset.randomUserId(random), dataset.randomUserId(random));
+    }
+}
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Условный GET по сильному ETag. Текущий ETag вычисляется дешёвым запросом версии, и при совпадении
+ * с If-None-Match ответ 304 отдаётся до загрузки ресурса и сериализации. Полный ответ получает ETag
+ * по версии загруженного ресурса. Cache-Control задаётся для каждого контроллера свойствами
+ * filmorate.http.cache-control.*.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest request, String cacheControl, Supplier<String> currentETag,
+                                         Supplier<T> loader, Function<T, String> eTagOf) {
+        // Без If-None-Match версия не нужна, лишнего запроса нет
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && request.checkNotModified(currentETag.get())) {
+            // checkNotModified уже выставил статус 304 и ETag ответа
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.CACHE_CONTROL, cacheControl).build();
+        }
+        T body = loader.get();
+        return ResponseEntity.ok()
+                .eTag(eTagOf.apply(body))
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .body(body);
+    }
+
+    static String eTag(long version) {
+        return "\"" + Long.toHexString(version) + "\"";
+    }
+
+    // Представление фильма включает названия жанров и MPA, поэтому в ETag входит и версия справочников
+    static String eTag(long filmVersion, long referenceDataVersion) {
+        return "\"" + Long.toHexString(filmVersion) + "-" + Long.toHexString(referenceDataVersion) + "\"";
+    }
+}
@@ -1,21 +1,45 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+import ru.yandex.practicum.filmorate.service.FilmExportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
 @RequestMapping("/films")
 @Slf4j
-@RequiredArgsConstructor
 public class FilmController {
 
     private final FilmService filmService;
+    private final FilmExportService filmExportService;
+    private final BulkImportService bulkImportService;
+    private final ReferenceDataCache referenceDataCache;
+    private final String cacheControl;
+
+    public FilmController(FilmService filmService, FilmExportService filmExportService,
+                          BulkImportService bulkImportService, ReferenceDataCache referenceDataCache,
+                          @Value("${filmorate.http.cache-control.films:no-cache}") String cacheControl) {
+        this.filmService = filmService;
+        this.filmExportService = filmExportService;
+        this.bulkImportService = bulkImportService;
+        this.referenceDataCache = referenceDataCache;
+        this.cacheControl = cacheControl;
+    }
 
     @PostMapping
     public Film createFilm(@RequestBody @Valid Film film) {
@@ -23,6 +47,13 @@ public class FilmController {
         return filmService.createFilm(film);
     }
 
+    // Тело (JSON-массив или NDJSON) читается потоком и целиком в памяти не держится
+    @PostMapping("/bulk")
+    public BulkImportResult importFilms(InputStream body) throws IOException {
+        log.info("Получен запрос на массовый импорт фильмов");
+        return bulkImportService.importFilms(body);
+    }
+
     @PutMapping
     public Film updateFilm(@RequestBody @Valid Film film) {
         log.info("Получен запрос на обновление фильма с id: {}", film.getId());
@@ -30,15 +61,34 @@ public class FilmController {
     }
 
     @GetMapping
-    public List<Film> getAllFilms() {
-        log.info("Получен запрос на получение списка всех фильмов");
-        return filmService.getAllFilms();
+    public ResponseEntity<List<FilmView>> getAllFilms(@RequestParam(required = false) Integer after,
+                                                  @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение списка всех фильмов");
+            return ResponseEntity.ok(filmService.getAllFilms());
+        }
+        int pageSize = Pagination.validateLimit(limit);
+        log.info("Получен запрос на получение страницы фильмов после id {} (размер {})", after, pageSize);
+        List<FilmView> films = filmService.getFilmsPage(after == null ? 0 : after, pageSize);
+        return Pagination.page(films, pageSize, FilmView::id);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        log.info("Получен запрос на выгрузку каталога фильмов");
+        StreamingResponseBody body = filmExportService::exportFilms;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable int id) {
+    public ResponseEntity<FilmView> getFilmById(@PathVariable int id, WebRequest request) {
         log.info("Получен запрос на получение фильма с id: {}", id);
-        return filmService.getFilmById(id);
+        return ConditionalGet.respond(request, cacheControl,
+                () -> ConditionalGet.eTag(filmService.getFilmVersion(id), referenceDataCache.getVersion()),
+                () -> filmService.getFilmById(id),
+                film -> ConditionalGet.eTag(film.version(), referenceDataCache.getVersion()));
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -54,8 +104,10 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        log.info("Получен запрос на получение топ-{} популярных фильмов", count);
-        return filmService.getPopularFilms(count);
+    public List<FilmView> getPopularFilms(@RequestParam(defaultValue = "10") int count,
+                                      @RequestParam(required = false) Integer genreId,
+                                      @RequestParam(required = false) Integer year) {
+        log.info("Получен запрос на получение топ-{} популярных фильмов (жанр: {}, год: {})", count, genreId, year);
+        return filmService.getPopularFilms(count, genreId, year);
     }
 }
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+
+import java.io.IOException;
+
+/**
+ * JSON фильма на чтение в том же виде, что и у {@link ru.yandex.practicum.filmorate.model.Film}:
+ * жанры и MPA с названиями из справочников в памяти. Промежуточные объекты жанров не создаются.
+ */
+@JsonComponent
+public class FilmViewSerializer extends JsonSerializer<FilmView> {
+
+    private final ReferenceDataCache referenceDataCache;
+
+    public FilmViewSerializer(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @Override
+    public void serialize(FilmView film, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", film.id());
+        gen.writeStringField("name", film.name());
+        gen.writeStringField("description", film.description());
+        provider.defaultSerializeField("releaseDate", film.releaseDate(), gen);
+        gen.writeNumberField("duration", film.duration());
+        gen.writeArrayFieldStart("genres");
+        for (int i = 0; i < film.genreCount(); i++) {
+            Genre genre = referenceDataCache.getGenreById(film.genreId(i));
+            gen.writeStartObject();
+            gen.writeNumberField("id", genre.getId());
+            gen.writeStringField("name", genre.getName());
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeNumberField("likesCount", film.likesCount());
+        MPA mpa = referenceDataCache.getMPAById(film.mpaId());
+        gen.writeObjectFieldStart("mpa");
+        gen.writeNumberField("id", mpa.getId());
+        gen.writeStringField("name", mpa.getName());
+        // Описание рейтинга в фильме никогда не отдавалось; поле сохранено ради совместимости ответа
+        gen.writeNullField("description");
+        gen.writeEndObject();
+        gen.writeEndObject();
+    }
+}
@@ -1,26 +1,42 @@
 package ru.yandex.practicum.filmorate.controller;
 
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/genres")
-@RequiredArgsConstructor
 public class GenreController {
 
-    private final GenreDbStorage genreDbStorage;
+    private final ReferenceDataCache referenceDataCache;
+    private final String cacheControl;
+
+    public GenreController(ReferenceDataCache referenceDataCache,
+                           @Value("${filmorate.http.cache-control.genres:no-cache}") String cacheControl) {
+        this.referenceDataCache = referenceDataCache;
+        this.cacheControl = cacheControl;
+    }
 
     @GetMapping
-    public List<Genre> getAllGenres() {
-        return genreDbStorage.getAllGenres();
+    public ResponseEntity<List<Genre>> getAllGenres(WebRequest request) {
+        return ConditionalGet.respond(request, cacheControl, this::eTag, referenceDataCache::getAllGenres,
+                genres -> eTag());
     }
 
     @GetMapping("/{id}")
-    public Genre getGenreById(@PathVariable int id) {
-        return genreDbStorage.getGenreById(id);
+    public ResponseEntity<Genre> getGenreById(@PathVariable int id, WebRequest request) {
+        // Версия справочника общая для всех жанров, поэтому сначала проверяем, что жанр существует:
+        // иначе запрос неизвестного id с актуальным ETag получил бы 304 вместо 404
+        Genre genre = referenceDataCache.getGenreById(id);
+        return ConditionalGet.respond(request, cacheControl, this::eTag, () -> genre, loaded -> eTag());
+    }
+
+    private String eTag() {
+        return ConditionalGet.eTag(referenceDataCache.getVersion());
     }
 }
@@ -1,14 +1,15 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.MPA;
-import ru.yandex.practicum.filmorate.storage.MPADbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.util.List;
 
@@ -16,24 +17,30 @@ import java.util.List;
 @RequestMapping("/mpa")
 public class MPAController {
 
-    private final MPADbStorage mpaDbStorage;
+    private final ReferenceDataCache referenceDataCache;
+    private final String cacheControl;
 
     @Autowired
-    public MPAController(MPADbStorage mpaDbStorage) {
-        this.mpaDbStorage = mpaDbStorage;
+    public MPAController(ReferenceDataCache referenceDataCache,
+                         @Value("${filmorate.http.cache-control.mpa:no-cache}") String cacheControl) {
+        this.referenceDataCache = referenceDataCache;
+        this.cacheControl = cacheControl;
     }
 
     @GetMapping
-    public List<MPA> getAllMPA() {
-        return mpaDbStorage.getAllMPA();
+    public ResponseEntity<List<MPA>> getAllMPA(WebRequest request) {
+        return ConditionalGet.respond(request, cacheControl, this::eTag, referenceDataCache::getAllMPA,
+                ratings -> eTag());
     }
 
     @GetMapping("/{id}")
-    public MPA getMPAById(@PathVariable int id) {
-        MPA mpa = mpaDbStorage.getMPAById(id);
-        if (mpa == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Рейтинг с id " + id + " не найден.");
-        }
-        return mpa;
+    public ResponseEntity<MPA> getMPAById(@PathVariable int id, WebRequest request) {
+        // Версия справочника общая для всех рейтингов, поэтому сначала проверяем, что рейтинг существует
+        MPA mpa = referenceDataCache.getMPAById(id);
+        return ConditionalGet.respond(request, cacheControl, this::eTag, () -> mpa, loaded -> eTag());
+    }
+
+    private String eTag() {
+        return ConditionalGet.eTag(referenceDataCache.getVersion());
     }
 }
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Постраничная выдача по курсору: клиент передаёт id последней полученной записи в параметре after,
+ * а курсор следующей страницы возвращается в заголовке X-Next-Cursor. Тело ответа остаётся обычным массивом.
+ */
+final class Pagination {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private Pagination() {
+    }
+
+    static int validateLimit(Integer limit) {
+        int value = limit == null ? DEFAULT_LIMIT : limit;
+        if (value <= 0 || value > MAX_LIMIT) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_LIMIT + ".");
+        }
+        return value;
+    }
+
+    static <T> ResponseEntity<List<T>> page(List<T> items, int limit, ToIntFunction<T> idExtractor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        // Неполная страница — последняя, курсор не нужен
+        if (items.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(idExtractor.applyAsInt(items.get(items.size() - 1))));
+        }
+        return response.body(items);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.storage.SqlStatementCounter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Считает SQL-выражения каждого запроса и пишет их число в распределение http.server.requests.sql.statements
+ * с шаблоном URI: рост числа выражений на один запрос (N+1) сразу виден на графиках.
+ * Свойство filmorate.debug.sql-statements-header включает отладочный заголовок X-Sql-Statements.
+ */
+@Component
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Sql-Statements";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean header;
+
+    public SqlStatementCountFilter(MeterRegistry meterRegistry,
+                                   @Value("${filmorate.debug.sql-statements-header:false}") boolean header) {
+        this.meterRegistry = meterRegistry;
+        this.header = header;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter.start();
+        try {
+            if (header) {
+                StatementCountHeaderResponse countedResponse = new StatementCountHeaderResponse(response);
+                chain.doFilter(request, countedResponse);
+                // Ответ без тела (void, 204, 304) ещё не отправлен — заголовок ставится здесь
+                countedResponse.setCountHeader();
+            } else {
+                chain.doFilter(request, response);
+            }
+        } finally {
+            int statements = SqlStatementCounter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("http.server.requests.sql.statements")
+                    .description("Число SQL-выражений на один HTTP-запрос")
+                    .tags("method", request.getMethod(), "uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+
+    // Заголовок нельзя поставить после отправки ответа, поэтому он ставится перед первой записью тела,
+    // отправкой ошибки или сбросом буфера
+    private static class StatementCountHeaderResponse extends HttpServletResponseWrapper {
+
+        StatementCountHeaderResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        void setCountHeader() {
+            if (!isCommitted()) {
+                setHeader(HEADER, String.valueOf(SqlStatementCounter.current()));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            setCountHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            setCountHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            setCountHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            setCountHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            setCountHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            setCountHeader();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -3,10 +3,17 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.FilmView;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -16,6 +23,8 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final FilmService filmService;
+    private final BulkImportService bulkImportService;
 
     @PostMapping
     public User createUser(@RequestBody @Valid User user) {
@@ -23,6 +32,13 @@ public class UserController {
         return userService.createUser(user);
     }
 
+    // Тело (JSON-массив или NDJSON) читается потоком и целиком в памяти не держится
+    @PostMapping("/bulk")
+    public BulkImportResult importUsers(InputStream body) throws IOException {
+        log.info("Получен запрос на массовый импорт пользователей");
+        return bulkImportService.importUsers(body);
+    }
+
     @PutMapping
     public User updateUser(@RequestBody @Valid User user) {
         log.info("Получен запрос на обновление пользователя с id: {}", user.getId());
@@ -30,9 +46,16 @@ public class UserController {
     }
 
     @GetMapping
-    public List<User> getAllUsers() {
-        log.info("Получен запрос на получение списка всех пользователей");
-        return userService.getAllUsers();
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) Integer after,
+                                                  @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение списка всех пользователей");
+            return ResponseEntity.ok(userService.getAllUsers());
+        }
+        int pageSize = Pagination.validateLimit(limit);
+        log.info("Получен запрос на получение страницы пользователей после id {} (размер {})", after, pageSize);
+        List<User> users = userService.getUsersPage(after == null ? 0 : after, pageSize);
+        return Pagination.page(users, pageSize, User::getId);
     }
 
     @GetMapping("/{id}")
@@ -60,9 +83,31 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public List<User> getFriends(@PathVariable int id) {
-        log.info("Получен запрос на получение списка друзей пользователя с id: {}", id);
-        return userService.getFriends(id);
+    public ResponseEntity<List<User>> getFriends(@PathVariable int id,
+                                                 @RequestParam(required = false) Integer after,
+                                                 @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение списка друзей пользователя с id: {}", id);
+            return ResponseEntity.ok(userService.getFriends(id));
+        }
+        int pageSize = Pagination.validateLimit(limit);
+        log.info("Получен запрос на получение страницы друзей пользователя с id {} после id {} (размер {})",
+                id, after, pageSize);
+        List<User> friends = userService.getFriendsPage(id, after == null ? 0 : after, pageSize);
+        return Pagination.page(friends, pageSize, User::getId);
+    }
+
+    @GetMapping("/{id}/suggestions")
+    public List<User> getSuggestions(@PathVariable int id, @RequestParam(defaultValue = "10") int limit) {
+        log.info("Получен запрос на рекомендации друзей для пользователя с id: {} (не более {})", id, limit);
+        return userService.getSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<FilmView> getRecommendations(@PathVariable int id, @RequestParam(defaultValue = "10") int limit) {
+        log.info("Получен запрос на рекомендации фильмов для пользователя с id: {} (не более {})", id, limit);
+        userService.getUserById(id);
+        return filmService.getRecommendations(id, limit);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkImportError {
+    // Порядковый номер записи во входном потоке, начиная с нуля
+    private int index;
+    private String error;
+}
@@ -7,19 +7,20 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.*;
-import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Set;
+import java.util.TreeSet;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Film {
+    private static final Comparator<Genre> GENRE_ORDER = Comparator.comparing(Genre::getId);
+
     private int id;
 
     @NotBlank(message = "Название фильма не может быть пустым.")
@@ -34,49 +35,29 @@ public class Film {
     @Positive(message = "Продолжительность фильма должна быть положительным числом.")
     private int duration;
 
-    @JsonIgnore
+    // Жанры хранятся уже с названиями и упорядочены по id, поэтому сериализация не обращается к базе
     @Builder.Default
-    private Set<Integer> genreIds = new HashSet<>();
+    private Set<Genre> genres = new TreeSet<>(GENRE_ORDER);
 
-    @JsonIgnore
-    @Builder.Default
-    private final Set<Integer> likes = new HashSet<>();
+    // Число лайков из films.likes_count: отдаётся клиенту, но не принимается от него
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int likesCount;
 
     private MPA mpa;
 
-    @JsonProperty("genres")
-    public List<Genre> getGenres() {
-        List<Genre> genres = new ArrayList<>();
-        if (genreIds != null) {
-            for (Integer id : genreIds) {
-                Genre genre = new Genre();
-                genre.setId(id);
-                // Проверяем, что genreDbStorage инициализирован
-                if (genreDbStorage != null) {
-                    Genre fullGenre = genreDbStorage.getGenreById(id);
-                    if (fullGenre != null) {
-                        genre.setName(fullGenre.getName());
-                    }
-                }
-                genres.add(genre);
-            }
-        }
-        return genres;
-    }
+    // Версия из films.version для ETag; в JSON не попадает
+    @JsonIgnore
+    private long version;
 
-    @JsonProperty("genres")
-    public void setGenres(List<Genre> genres) {
+    public void setGenres(Collection<Genre> genres) {
+        this.genres = new TreeSet<>(GENRE_ORDER);
         if (genres != null) {
-            genreIds.clear();
-            genres.forEach(genre -> genreIds.add(genre.getId()));
+            genres.stream()
+                    .filter(genre -> genre != null && genre.getId() != null)
+                    .forEach(this.genres::add);
         }
     }
 
-    // Добавляем зависимость для доступа к жанрам
-    @JsonIgnore
-    @Setter
-    private transient GenreDbStorage genreDbStorage;
-
     public void setReleaseDate(LocalDate releaseDate) {
         LocalDate earliestDate = LocalDate.of(1895, 12, 28);
         if (releaseDate != null && releaseDate.isBefore(earliestDate)) {
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Фильм на чтение: неизменяемая запись, которую хранилище строит прямо из строки результата.
+ * MPA хранится идентификатором, жанры — отсортированным массивом id, лайки — числом; названия
+ * подставляет сериализатор из справочников. Массив жанров наружу не отдаётся, поэтому экземпляр
+ * можно держать в кэше и раздавать без копирования. Моделью запросов на запись остаётся {@link Film}.
+ */
+public record FilmView(int id, String name, String description, LocalDate releaseDate, int duration,
+                       int mpaId, int[] genreIds, int likesCount, long version) {
+
+    // Массив передаёт во владение записи сам конструирующий код (маппер строки), поэтому он не копируется
+    public FilmView {
+        Objects.requireNonNull(genreIds);
+    }
+
+    @Override
+    public int[] genreIds() {
+        return genreIds.clone();
+    }
+
+    public int genreCount() {
+        return genreIds.length;
+    }
+
+    public int genreId(int index) {
+        return genreIds[index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FilmView other
+                && id == other.id && duration == other.duration && mpaId == other.mpaId
+                && likesCount == other.likesCount && version == other.version
+                && Objects.equals(name, other.name) && Objects.equals(description, other.description)
+                && Objects.equals(releaseDate, other.releaseDate) && Arrays.equals(genreIds, other.genreIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(id, name, description, releaseDate, duration, mpaId, likesCount, version)
+                + Arrays.hashCode(genreIds);
+    }
+
+    @Override
+    public String toString() {
+        return "FilmView[id=" + id + ", name=" + name + ", description=" + description + ", releaseDate="
+                + releaseDate + ", duration=" + duration + ", mpaId=" + mpaId + ", genreIds="
+                + Arrays.toString(genreIds) + ", likesCount=" + likesCount + ", version=" + version + "]";
+    }
+}
@@ -1,6 +1,5 @@
 package ru.yandex.practicum.filmorate.model;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.PastOrPresent;
@@ -11,8 +10,6 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -34,15 +31,7 @@ public class User {
     @PastOrPresent(message = "Дата рождения не может быть в будущем.")
     private LocalDate birthday;
 
-    @JsonIgnore
-    private final Map<Integer, FriendshipStatus> friendStatuses = new HashMap<>();
-
     public void setName(String name) {
         this.name = (name == null || name.isBlank()) ? login : name;
     }
-
-    public enum FriendshipStatus {
-        UNCONFIRMED,
-        CONFIRMED
-    }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Массовый импорт фильмов и пользователей. Тело запроса (JSON-массив или NDJSON) читается потоком
+ * по одной записи, записи проверяются теми же аннотациями Bean Validation, что и в обычных запросах,
+ * и пишутся JDBC-пакетами, каждый пакет — в своей транзакции.
+ */
+@Service
+@Slf4j
+public class BulkImportService {
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final FilmService filmService;
+    // Рейтинг популярности в памяти; null, если выключен
+    private final PopularityLeaderboard leaderboard;
+    private final int batchSize;
+
+    public BulkImportService(ObjectMapper objectMapper, Validator validator, TransactionTemplate transactionTemplate,
+                             FilmStorage filmStorage, UserStorage userStorage, FilmService filmService,
+                             Optional<PopularityLeaderboard> leaderboard,
+                             @Value("${filmorate.bulk.batch-size:500}") int batchSize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.filmService = filmService;
+        this.leaderboard = leaderboard.orElse(null);
+        this.batchSize = batchSize;
+    }
+
+    public BulkImportResult importFilms(InputStream body) throws IOException {
+        return importRecords(body, Film.class, filmService::prepareForSave,
+                filmStorage::createFilms, filmStorage::createFilm, film -> {
+                    if (leaderboard != null) {
+                        leaderboard.addFilm(film.getId());
+                    }
+                });
+    }
+
+    public BulkImportResult importUsers(InputStream body) throws IOException {
+        return importRecords(body, User.class, user -> {
+        }, userStorage::createUsers, userStorage::createUser, user -> {
+        });
+    }
+
+    private <T> BulkImportResult importRecords(InputStream body, Class<T> type, Consumer<T> preparer,
+                                               Consumer<List<T>> batchWriter, Consumer<T> singleWriter,
+                                               Consumer<T> afterImport) throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        List<Indexed<T>> chunk = new ArrayList<>(batchSize);
+        int index = 0;
+        try (MappingIterator<T> records = objectMapper.readerFor(type).readValues(body)) {
+            while (hasNextRecord(records, index, result)) {
+                try {
+                    T record = records.nextValue();
+                    validate(record);
+                    preparer.accept(record);
+                    chunk.add(new Indexed<>(index, record));
+                } catch (JsonProcessingException e) {
+                    result.addError(index, "Некорректный формат данных: " + e.getOriginalMessage());
+                } catch (RuntimeException e) {
+                    result.addError(index, e.getMessage());
+                }
+                index++;
+                if (chunk.size() >= batchSize) {
+                    writeChunk(chunk, batchWriter, singleWriter, afterImport, result);
+                    chunk.clear();
+                }
+            }
+        }
+        writeChunk(chunk, batchWriter, singleWriter, afterImport, result);
+        log.info("Импорт {}: обработано записей {}, записано {}, ошибок {}",
+                type.getSimpleName(), index, result.getImported(), result.getErrors().size());
+        return result;
+    }
+
+    // Синтаксическую ошибку JSON пропустить нельзя — импорт на ней останавливается
+    private boolean hasNextRecord(MappingIterator<?> records, int index, BulkImportResult result) {
+        try {
+            return records.hasNextValue();
+        } catch (IOException e) {
+            result.addError(index, "Некорректный формат данных, импорт остановлен: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private <T> void validate(T record) {
+        Set<ConstraintViolation<T>> violations = validator.validate(record);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException("Ошибка валидации: " + violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private <T> void writeChunk(List<Indexed<T>> chunk, Consumer<List<T>> batchWriter, Consumer<T> singleWriter,
+                                Consumer<T> afterImport, BulkImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<T> values = chunk.stream().map(Indexed::value).collect(Collectors.toList());
+        try {
+            transactionTemplate.executeWithoutResult(status -> batchWriter.accept(values));
+            values.forEach(afterImport);
+            result.addImported(values.size());
+        } catch (RuntimeException e) {
+            // Пакет откатился целиком: пишем записи по одной, чтобы указать в отчёте проблемные
+            log.debug("Пакет из {} записей не записан, повтор по одной: {}", values.size(), e.getMessage());
+            for (Indexed<T> record : chunk) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> singleWriter.accept(record.value()));
+                    afterImport.accept(record.value());
+                    result.addImported(1);
+                } catch (DuplicateKeyException ex) {
+                    result.addError(record.index(), "Запись с такими уникальными полями уже существует.");
+                } catch (DataAccessException ex) {
+                    result.addError(record.index(), ex.getMostSpecificCause().getMessage());
+                } catch (RuntimeException ex) {
+                    result.addError(record.index(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private record Indexed<T>(int index, T value) {
+    }
+}
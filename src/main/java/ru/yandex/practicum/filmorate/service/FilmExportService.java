@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Выгрузка каталога фильмов в NDJSON: по одному JSON-объекту на строку. Строки пишутся в поток ответа
+ * по мере чтения курсора, поэтому расход памяти не зависит от размера каталога.
+ */
+@Service
+@Slf4j
+public class FilmExportService {
+    private final ObjectMapper objectMapper;
+    private final FilmStorage filmStorage;
+    private final FilmService filmService;
+    private final int fetchSize;
+
+    public FilmExportService(ObjectMapper objectMapper, FilmStorage filmStorage, FilmService filmService,
+                             @Value("${filmorate.export.fetch-size:1000}") int fetchSize) {
+        this.objectMapper = objectMapper;
+        this.filmStorage = filmStorage;
+        this.filmService = filmService;
+        this.fetchSize = fetchSize;
+    }
+
+    public void exportFilms(OutputStream out) throws IOException {
+        // Счётчики лайков читаются из базы: отложенные лайки должны попасть в выгрузку
+        filmService.flushLikes();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // Поток ответа закрывает контейнер сервлетов
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Записи разделяются только переводом строки, без пробела по умолчанию
+            generator.setRootValueSeparator(null);
+            int[] exported = {0};
+            try {
+                filmStorage.exportFilms(fetchSize, film -> {
+                    try {
+                        generator.writeObject(film);
+                        generator.writeRaw('\n');
+                        exported[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            log.info("Выгружено фильмов: {}", exported[0]);
+        }
+    }
+}
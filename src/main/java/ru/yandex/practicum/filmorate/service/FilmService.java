@@ -1,107 +1,200 @@
 package ru.yandex.practicum.filmorate.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.FilmCache;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
-import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
-import ru.yandex.practicum.filmorate.storage.MPADbStorage;
-import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.storage.LikesIndex;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Service
 public class FilmService {
     private final FilmStorage filmStorage;
-    private final UserStorage userStorage;
-    private final GenreDbStorage genreDbStorage;
-    private final MPADbStorage mpaDbStorage; // Добавлено
+    private final ReferenceDataCache referenceDataCache;
+    // Рейтинг популярности в памяти; null, если топ фильмов считается запросом к базе
+    private final PopularityLeaderboard leaderboard;
+    // Буфер отложенной записи лайков; null, если лайки пишутся в базу сразу
+    private final LikeWriteBuffer likeWriteBuffer;
+    // Индекс лайков для рекомендаций; null, если рекомендации считаются запросом к базе
+    private final LikesIndex likesIndex;
+    // Кэш фильмов по id; null, если каждый запрос фильма идёт в базу
+    private final FilmCache filmCache;
+    private final int similarUsers;
 
     @Autowired
-    public FilmService(FilmStorage filmStorage, UserStorage userStorage, GenreDbStorage genreDbStorage, MPADbStorage mpaDbStorage) {
+    public FilmService(FilmStorage filmStorage, ReferenceDataCache referenceDataCache,
+                       Optional<PopularityLeaderboard> leaderboard, Optional<LikeWriteBuffer> likeWriteBuffer,
+                       Optional<LikesIndex> likesIndex, Optional<FilmCache> filmCache,
+                       @Value("${filmorate.recommendations.similar-users:10}") int similarUsers) {
         this.filmStorage = filmStorage;
-        this.userStorage = userStorage;
-        this.genreDbStorage = genreDbStorage;
-        this.mpaDbStorage = mpaDbStorage; // Инициализация
+        this.referenceDataCache = referenceDataCache;
+        this.leaderboard = leaderboard.orElse(null);
+        this.likeWriteBuffer = likeWriteBuffer.orElse(null);
+        this.likesIndex = likesIndex.orElse(null);
+        this.filmCache = filmCache.orElse(null);
+        this.similarUsers = similarUsers;
     }
 
     public Film createFilm(Film film) {
-        validateMpa(film);
-        film.setGenreDbStorage(genreDbStorage);
-        return filmStorage.createFilm(film);
+        prepareForSave(film);
+        Film created = filmStorage.createFilm(film);
+        if (leaderboard != null) {
+            leaderboard.addFilm(created.getId());
+        }
+        return created;
     }
 
     public Film updateFilm(Film film) {
-        validateMpa(film);
-        film.setGenreDbStorage(genreDbStorage);
-        if (filmStorage.getFilmById(film.getId()) == null) {
-            throw new NotFoundException("Фильм с id " + film.getId() + " не найден.");
-        }
-        return filmStorage.updateFilm(film);
+        prepareForSave(film);
+        // Отсутствие фильма определяет сам UPDATE, отдельная загрузка фильма не нужна
+        Film updated = filmStorage.updateFilm(film);
+        evict(film.getId());
+        return updated;
+    }
+
+    public List<FilmView> getAllFilms() {
+        return filmStorage.getAllFilms();
+    }
+
+    public List<FilmView> getFilmsPage(int afterId, int limit) {
+        return filmStorage.getFilmsPage(afterId, limit);
     }
 
-    public List<Film> getAllFilms() {
-        List<Film> films = new ArrayList<>(filmStorage.getAllFilms());
-        films.forEach(film -> film.setGenreDbStorage(genreDbStorage));
-        return films;
+    public long getFilmVersion(int id) {
+        Long version = filmStorage.getFilmVersion(id);
+        if (version == null) {
+            throw new NotFoundException("Фильм с id " + id + " не найден.");
+        }
+        return version;
     }
 
-    public Film getFilmById(int id) {
-        Film film = filmStorage.getFilmById(id);
+    public FilmView getFilmById(int id) {
+        flushLikes(List.of(id));
+        FilmView film = filmCache != null ? filmCache.get(id, filmStorage::getFilmById) : filmStorage.getFilmById(id);
         if (film == null) {
             throw new NotFoundException("Фильм с id " + id + " не найден.");
         }
-        film.setGenreDbStorage(genreDbStorage);
         return film;
     }
 
+    // Существование фильма и пользователя проверяет сам запрос записи лайка
     public void addLike(int filmId, int userId) {
-        Film film = getFilmOrThrow(filmId);
-        if (userStorage.getUserById(userId) == null) {
-            throw new NotFoundException("Пользователь с id " + userId + " не найден.");
+        if (likeWriteBuffer != null) {
+            likeWriteBuffer.addLike(filmId, userId);
+        } else {
+            filmStorage.addLike(filmId, userId);
+            evict(filmId);
+        }
+        if (leaderboard != null) {
+            leaderboard.increment(filmId);
+        }
+        if (likesIndex != null) {
+            likesIndex.addLike(filmId, userId);
         }
-        // Сначала в БД
-        filmStorage.addLike(filmId, userId);
-        // Потом обновляем объект
-        film.getLikes().add(userId);
     }
 
     public void removeLike(int filmId, int userId) {
-        Film film = getFilmOrThrow(filmId);
-        if (userStorage.getUserById(userId) == null) {
-            throw new NotFoundException("Пользователь с id " + userId + " не найден.");
+        boolean removed;
+        if (likeWriteBuffer != null) {
+            removed = likeWriteBuffer.removeLike(filmId, userId);
+        } else {
+            removed = filmStorage.removeLike(filmId, userId);
+            if (removed) {
+                evict(filmId);
+            }
+        }
+        if (removed) {
+            if (leaderboard != null) {
+                leaderboard.decrement(filmId);
+            }
+            if (likesIndex != null) {
+                likesIndex.removeLike(filmId, userId);
+            }
         }
-        // Сначала в БД
-        filmStorage.removeLike(filmId, userId);
-        // Потом обновляем объект
-        film.getLikes().remove(userId);
     }
 
-    public List<Film> getPopularFilms(int count) {
-        return filmStorage.getAllFilms().stream()
-                .sorted(Comparator.comparing(film -> -film.getLikes().size()))
-                .limit(count)
-                .collect(Collectors.toList());
+    public List<FilmView> getPopularFilms(int count, Integer genreId, Integer year) {
+        if (count <= 0) {
+            throw new ValidationException("Количество фильмов должно быть положительным числом.");
+        }
+        if (genreId != null || year != null || leaderboard == null) {
+            // Рейтинг с фильтрами или без рейтинга в памяти считается в базе, поэтому отложенные лайки
+            // сначала записываются
+            flushLikes();
+            return filmStorage.getPopularFilms(count, genreId, year);
+        }
+        // Рейтинг берём из памяти, из базы подгружаются только фильмы-победители; их отложенные лайки
+        // записываются до чтения, иначе порядок учитывал бы лайк, а likesCount — нет
+        List<Integer> topFilmIds = leaderboard.getTopFilmIds(count);
+        flushLikes(topFilmIds);
+        return filmStorage.getFilmsByIds(topFilmIds);
     }
 
-    private Film getFilmOrThrow(int id) {
-        Film film = filmStorage.getFilmById(id);
-        if (film == null) {
-            throw new NotFoundException("Фильм с id " + id + " не найден.");
+    // Фильмы, которые лайкнули пользователи с похожими вкусами, а сам пользователь ещё нет
+    public List<FilmView> getRecommendations(int userId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Количество рекомендаций должно быть положительным числом.");
         }
-        return film;
+        if (likesIndex != null) {
+            List<Integer> filmIds = Arrays.stream(likesIndex.recommendFilms(userId, similarUsers, limit)).boxed().toList();
+            flushLikes(filmIds);
+            return filmStorage.getFilmsByIds(filmIds);
+        }
+        flushLikes();
+        return filmStorage.getFilmsByIds(filmStorage.getRecommendedFilmIds(userId, similarUsers, limit));
+    }
+
+    public void flushLikes() {
+        if (likeWriteBuffer != null) {
+            likeWriteBuffer.flush();
+        }
+    }
+
+    // Записывает отложенные лайки перед чтением фильмов, только если они касаются этих фильмов
+    private void flushLikes(Collection<Integer> filmIds) {
+        if (likeWriteBuffer != null) {
+            likeWriteBuffer.flush(filmIds);
+        }
+    }
+
+    // Проверяет MPA и жанры по справочникам в памяти; используется и при массовом импорте
+    void prepareForSave(Film film) {
+        validateMpa(film);
+        resolveGenres(film);
     }
 
     private void validateMpa(Film film) {
         if (film.getMpa() == null || film.getMpa().getId() == null) {
             throw new IllegalArgumentException("MPA и его id не могут быть null.");
         }
-        if (mpaDbStorage.getMPAById(film.getMpa().getId()) == null) {
-            throw new NotFoundException("MPA с id " + film.getMpa().getId() + " не найден.");
+        referenceDataCache.getMPAById(film.getMpa().getId());
+    }
+
+    // Проверяет жанры по справочнику в памяти и подставляет их названия
+    private void resolveGenres(Film film) {
+        List<Genre> genres = film.getGenres().stream()
+                .map(genre -> referenceDataCache.getGenreById(genre.getId()))
+                .map(genre -> new Genre(genre.getId(), genre.getName()))
+                .toList();
+        film.setGenres(genres);
+    }
+
+    // Отложенные лайки удаляет из кэша LikeWriteBuffer после записи пакета: до неё фильм в базе не меняется
+    private void evict(int filmId) {
+        if (filmCache != null) {
+            filmCache.invalidate(filmId);
         }
     }
 }
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmCache;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодическая сверка films.likes_count с таблицей likes (включается свойством
+ * filmorate.likes.reconcile.enabled). Счётчик обновляется в одной транзакции с лайком, поэтому
+ * расхождение возможно только после ручной правки данных или сбоя; найденные расхождения исправляются
+ * в базе и в рейтинге популярности.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.reconcile.enabled", havingValue = "true")
+@Slf4j
+public class LikesCountReconciler {
+
+    private final FilmStorage filmStorage;
+    private final FilmService filmService;
+    // Рейтинг популярности в памяти; null, если выключен
+    private final PopularityLeaderboard leaderboard;
+    // Кэш фильмов; null, если выключен
+    private final FilmCache filmCache;
+    private final long intervalMs;
+    private ScheduledExecutorService scheduler;
+
+    public LikesCountReconciler(FilmStorage filmStorage, FilmService filmService,
+                                Optional<PopularityLeaderboard> leaderboard, Optional<FilmCache> filmCache,
+                                @Value("${filmorate.likes.reconcile.interval-ms:600000}") long intervalMs) {
+        this.filmStorage = filmStorage;
+        this.filmService = filmService;
+        this.leaderboard = leaderboard.orElse(null);
+        this.filmCache = filmCache.orElse(null);
+        this.intervalMs = intervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "likes-count-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reconcileQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Исправляет расходящиеся счётчики и возвращает их число. Отложенные лайки сначала записываются,
+     * иначе счётчики в базе законно отставали бы от рейтинга в памяти.
+     */
+    public int reconcile() {
+        filmService.flushLikes();
+        // Рейтинг получает пересчитанное значение, а не поправку: он мог и не разойтись с таблицей likes,
+        // если испорчен был только столбец likes_count
+        Map<Integer, Integer> repaired = filmStorage.reconcileLikeCounts(
+                leaderboard != null ? leaderboard::setLikes : (filmId, likes) -> { });
+        if (filmCache != null) {
+            filmCache.invalidateAll(repaired.keySet());
+        }
+        if (!repaired.isEmpty()) {
+            log.warn("Исправлены счётчики лайков у {} фильмов", repaired.size());
+        }
+        return repaired.size();
+    }
+
+    // Ошибка одного прохода не должна останавливать расписание
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Не удалось сверить счётчики лайков", e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Рейтинг популярности фильмов в памяти. Счётчики лайков обновляются на каждый лайк и его отмену,
+ * поэтому топ фильмов строится без обращения к базе. При старте рейтинг восстанавливается из films.likes_count.
+ * Рейтинг видит только лайки своего экземпляра, поэтому при нескольких экземплярах его выключают
+ * свойством filmorate.films.leaderboard.enabled, и топ считается запросом к базе.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.films.leaderboard.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class PopularityLeaderboard {
+
+    private static final Comparator<Entry> RANKING_ORDER = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+
+    private final FilmStorage filmStorage;
+    private final Map<Integer, Integer> likesByFilm = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING_ORDER);
+
+    public PopularityLeaderboard(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        Map<Integer, Integer> likeCounts = filmStorage.getLikeCounts();
+        likesByFilm.clear();
+        ranking.clear();
+        likeCounts.forEach((filmId, likes) -> adjust(filmId, likes));
+        log.info("Рейтинг популярности восстановлен: {} фильмов", likeCounts.size());
+    }
+
+    public void addFilm(int filmId) {
+        adjust(filmId, 0);
+    }
+
+    public void increment(int filmId) {
+        adjust(filmId, 1);
+    }
+
+    public void decrement(int filmId) {
+        adjust(filmId, -1);
+    }
+
+    // Счётчик, пересчитанный сверкой с базой. Сверка вызывает его, пока строка фильма заблокирована,
+    // поэтому лайки, зафиксированные после пересчёта, прибавятся к нему
+    public void setLikes(int filmId, int likes) {
+        likesByFilm.compute(filmId, (id, current) -> {
+            ranking.add(new Entry(id, likes));
+            if (current != null && current != likes) {
+                ranking.remove(new Entry(id, current));
+            }
+            return likes;
+        });
+    }
+
+    public List<Integer> getTopFilmIds(int count) {
+        List<Integer> filmIds = new ArrayList<>(count);
+        // Во время обновления фильм может ненадолго встретиться дважды — со старым и новым счётчиком
+        Set<Integer> seen = new HashSet<>();
+        for (Entry entry : ranking) {
+            if (filmIds.size() >= count) {
+                break;
+            }
+            if (seen.add(entry.filmId())) {
+                filmIds.add(entry.filmId());
+            }
+        }
+        return filmIds;
+    }
+
+    public int getLikes(int filmId) {
+        return likesByFilm.getOrDefault(filmId, 0);
+    }
+
+    private void adjust(int filmId, int delta) {
+        // compute блокирует запись только для этого фильма; новая позиция добавляется раньше,
+        // чем удаляется старая, чтобы читатели не пропустили фильм. Счётчик не ограничивается нулём:
+        // отмена лайка может дойти сюда раньше самого лайка, и временный -1 затем вернётся к 0
+        likesByFilm.compute(filmId, (id, current) -> {
+            int old = current == null ? 0 : current;
+            int updated = old + delta;
+            ranking.add(new Entry(id, updated));
+            if (current != null && updated != old) {
+                ranking.remove(new Entry(id, old));
+            }
+            return updated;
+        });
+    }
+
+    private record Entry(int filmId, int likes) {
+    }
+}
@@ -1,25 +1,38 @@
 package ru.yandex.practicum.filmorate.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FriendshipGraph;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class UserService {
     private final UserStorage userStorage;
+    // Граф дружбы в памяти; null, если общие друзья ищутся запросом к базе
+    private final FriendshipGraph friendshipGraph;
+    private final int suggestionsFanOut;
 
     @Autowired
-    public UserService(UserStorage userStorage) {
+    public UserService(UserStorage userStorage, Optional<FriendshipGraph> friendshipGraph,
+                       @Value("${filmorate.friends.suggestions.fan-out:200}") int suggestionsFanOut) {
         this.userStorage = userStorage;
+        this.friendshipGraph = friendshipGraph.orElse(null);
+        this.suggestionsFanOut = suggestionsFanOut;
     }
 
     public User createUser(User user) {
@@ -37,6 +50,10 @@ public class UserService {
         return new ArrayList<>(userStorage.getAllUsers());
     }
 
+    public List<User> getUsersPage(int afterId, int limit) {
+        return userStorage.getUsersPage(afterId, limit);
+    }
+
     public User getUserById(int id) {
         User user = userStorage.getUserById(id);
         if (user == null) {
@@ -50,6 +67,9 @@ public class UserService {
         getUserOrThrow(userId);
         getUserOrThrow(friendId);
         userStorage.addFriend(userId, friendId);
+        if (friendshipGraph != null) {
+            friendshipGraph.addFriend(userId, friendId);
+        }
     }
 
     public void removeFriend(int userId, int friendId) {
@@ -62,6 +82,9 @@ public class UserService {
         }
 
         userStorage.removeFriend(userId, friendId);
+        if (friendshipGraph != null) {
+            friendshipGraph.removeFriend(userId, friendId);
+        }
     }
 
     public List<Integer> getFriendsIds(int userId) {
@@ -70,20 +93,64 @@ public class UserService {
     }
 
     public List<User> getFriends(int userId) {
-        getUserOrThrow(userId);
-        List<Integer> friendIds = userStorage.getUserFriends(userId);
-        return friendIds.stream()
-                .map(userStorage::getUserById)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        return getFriendsPage(userId, 0, Integer.MAX_VALUE);
+    }
+
+    // Проверка существования пользователя выполняется тем же запросом, что и выборка друзей
+    public List<User> getFriendsPage(int userId, int afterId, int limit) {
+        List<User> friends = userStorage.getFriendsPage(userId, afterId, limit);
+        if (friends == null) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден.");
+        }
+        return friends;
     }
 
     public List<User> getCommonFriends(int userId, int otherId) {
+        if (friendshipGraph != null) {
+            return getCommonFriendsFromGraph(userId, otherId);
+        }
         getUserOrThrow(userId);
         getUserOrThrow(otherId);
         return userStorage.getCommonFriends(userId, otherId);
     }
 
+    // Кандидаты ранжируются по числу общих друзей; при включённом графе обход идёт в памяти
+    public List<User> getSuggestions(int userId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Количество рекомендаций должно быть положительным числом.");
+        }
+        getUserOrThrow(userId);
+        if (friendshipGraph == null) {
+            return userStorage.getFriendSuggestions(userId, suggestionsFanOut, limit);
+        }
+        int[] suggestedIds = friendshipGraph.suggestFriends(userId, suggestionsFanOut, limit);
+        Map<Integer, User> usersById = userStorage.getUsersByIds(suggestedIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return Arrays.stream(suggestedIds)
+                .mapToObj(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // Пересечение считается в памяти; оба пользователя и общие друзья загружаются одним запросом
+    private List<User> getCommonFriendsFromGraph(int userId, int otherId) {
+        int[] commonIds = friendshipGraph.getCommonFriendIds(userId, otherId);
+        int[] ids = Arrays.copyOf(commonIds, commonIds.length + 2);
+        ids[commonIds.length] = userId;
+        ids[commonIds.length + 1] = otherId;
+        Map<Integer, User> usersById = userStorage.getUsersByIds(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        for (int id : new int[]{userId, otherId}) {
+            if (!usersById.containsKey(id)) {
+                throw new NotFoundException("Пользователь с id " + id + " не найден.");
+            }
+        }
+        return Arrays.stream(commonIds)
+                .mapToObj(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     private User getUserOrThrow(int id) {
         User user = userStorage.getUserById(id);
         if (user == null) {
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Находит места, где виртуальный поток блокируется, оставаясь закреплённым за платформенным
+ * (блокировка внутри synchronized или native-вызова), — включается свойством
+ * filmorate.threads.pinning-monitor.enabled. События JFR jdk.VirtualThreadPinned длиннее порога
+ * попадают в таймер jvm.threads.virtual.pinned с тегом первого кадра вне JDK; полный стек каждого
+ * нового места пишется в лог один раз.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.threads.pinning-monitor.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final Set<String> reportedFrames = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${filmorate.threads.pinning-monitor.threshold-ms:20}") long thresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Отслеживание закрепления виртуальных потоков включено: порог {} мс", threshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        String frame = culpritFrame(stackTrace);
+        Timer.builder("jvm.threads.virtual.pinned")
+                .description("Блокировки виртуальных потоков, закреплённых за платформенным потоком")
+                .tag("frame", frame)
+                .register(meterRegistry)
+                .record(event.getDuration());
+        if (reportedFrames.add(frame)) {
+            log.warn("Виртуальный поток закреплён на {} мс в {}:\n{}", event.getDuration().toMillis(), frame,
+                    stackTrace == null ? "стек недоступен" : stackTrace.getFrames().stream()
+                            .map(VirtualThreadPinningMonitor::describe)
+                            .collect(Collectors.joining("\n\tat ", "\tat ", "")));
+        }
+    }
+
+    // Верхние кадры — механизм парковки JDK; виновник — первый кадр приложения или библиотеки
+    private static String culpritFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        return stackTrace.getFrames().stream()
+                .map(VirtualThreadPinningMonitor::describe)
+                .filter(frame -> !frame.startsWith("java.") && !frame.startsWith("jdk.") && !frame.startsWith("sun."))
+                .findFirst()
+                .orElse("jdk");
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+}
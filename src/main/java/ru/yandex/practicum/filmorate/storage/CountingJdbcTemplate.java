@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JdbcTemplate, который учитывает каждое созданное выражение (запрос, обновление, пакет)
+ * в {@link SqlStatementCounter} текущего запроса.
+ */
+public class CountingJdbcTemplate extends JdbcTemplate {
+
+    public CountingJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        SqlStatementCounter.increment();
+        super.applyStatementSettings(stmt);
+    }
+}
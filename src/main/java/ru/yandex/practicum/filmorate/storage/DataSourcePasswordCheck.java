@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AbstractDependsOnBeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+
+/**
+ * Проверка пароля базы до создания пула соединений. В prod пароль задаётся только окружением
+ * (FILMORATE_DB_PASSWORD), а Spring Boot оставляет неразрешённый заполнитель в spring.datasource.password
+ * как есть — без проверки пул подключался бы с буквальным текстом заполнителя вместо ошибки при старте.
+ * В остальных профилях пустой пароль допустим (например, у базы в памяти), поэтому проверка действует только в prod.
+ */
+@Configuration
+@Profile("prod")
+public class DataSourcePasswordCheck {
+
+    // @Value, в отличие от привязки свойств пула, не принимает неразрешённые заполнители
+    public DataSourcePasswordCheck(@Value("${spring.datasource.password}") String password) {
+        if (password.isBlank()) {
+            throw new IllegalStateException("Не задан пароль базы данных (spring.datasource.password).");
+        }
+    }
+
+    @Bean
+    public static DataSourceDependsOnPasswordCheck dataSourceDependsOnPasswordCheck() {
+        return new DataSourceDependsOnPasswordCheck();
+    }
+
+    static class DataSourceDependsOnPasswordCheck extends AbstractDependsOnBeanFactoryPostProcessor {
+        DataSourceDependsOnPasswordCheck() {
+            super(DataSource.class, "dataSourcePasswordCheck");
+        }
+    }
+}
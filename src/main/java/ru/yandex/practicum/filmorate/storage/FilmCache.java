@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmView;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Кэш загруженных фильмов по id (включается свойством filmorate.films.cache.enabled). Caffeine вытесняет
+ * записи по W-TinyLFU при превышении размера и по времени жизни. Запись удаляется после каждого изменения
+ * фильма в базе: обновления, лайка, записи пакета отложенных лайков, сверки счётчиков. Фильмы хранятся
+ * неизменяемыми {@link FilmView} и отдаются без копирования.
+ * Метрики: cache.gets (hit/miss), cache.evictions, cache.size с тегом cache=films.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.films.cache.enabled", havingValue = "true")
+@Slf4j
+public class FilmCache implements MeterBinder {
+
+    private final Cache<Integer, FilmView> cache;
+
+    public FilmCache(@Value("${filmorate.films.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${filmorate.films.cache.ttl-ms:600000}") long ttlMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        log.info("Кэш фильмов включён: не более {} фильмов, время жизни {} мс", maximumSize, ttlMs);
+    }
+
+    /**
+     * Возвращает фильм из кэша или загружает его. Загрузка идёт под блокировкой ключа, и удаление
+     * записи, пришедшее во время загрузки, дожидается её и удаляет результат, поэтому устаревшая версия
+     * фильма не остаётся в кэше. Отсутствующий фильм (null) не кэшируется.
+     */
+    public FilmView get(int id, IntFunction<FilmView> loader) {
+        return cache.get(id, loader::apply);
+    }
+
+    // Вызывается после фиксации изменения в базе
+    public void invalidate(int id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(Collection<Integer> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "films");
+    }
+
+}
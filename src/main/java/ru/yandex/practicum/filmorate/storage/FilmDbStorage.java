@@ -1,81 +1,119 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.FilmView;
 
 import java.sql.*;
 import java.sql.Date;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 public class FilmDbStorage implements FilmStorage {
 
+    private static final String INSERT_FILM_SQL =
+            "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * Фильм на чтение строится одним запросом: жанры приходят массивом id из подзапроса, название MPA
+     * не читается — его подставляет сериализатор из справочника. Маппер читает колонки по позиции,
+     * поэтому их порядок меняется только вместе с {@link #FILM_VIEW_ROW_MAPPER}.
+     */
+    private static final String SELECT_FILMS_SQL =
+            "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, f.likes_count, f.version, " +
+            "ARRAY(SELECT fg.genre_id FROM film_genres fg WHERE fg.film_id = f.id ORDER BY fg.genre_id) " +
+            "FROM films f ";
+
     private final JdbcTemplate jdbcTemplate;
 
     public FilmDbStorage(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
 
-    private final RowMapper<Film> filmRowMapper = (rs, rowNum) -> {
-        Film film = new Film();
-        film.setId(rs.getInt("id"));
-        film.setName(rs.getString("name"));
-        film.setDescription(rs.getString("description"));
-        film.setReleaseDate(rs.getDate("release_date").toLocalDate());
-        film.setDuration(rs.getInt("duration"));
+    private static final RowMapper<FilmView> FILM_VIEW_ROW_MAPPER = (rs, rowNum) -> new FilmView(
+            rs.getInt(1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getObject(4, LocalDate.class),
+            rs.getInt(5),
+            rs.getInt(6),
+            toIntArray(rs.getArray(9)),
+            rs.getInt(7),
+            rs.getLong(8));
 
-        MPA mpa = new MPA();
-        Integer mpaId = rs.getInt("mpa_id");
-        if (rs.wasNull()) {
-            mpa.setId(null);
-        } else {
-            mpa.setId(mpaId);
+    private static int[] toIntArray(Array array) throws SQLException {
+        Object[] values = (Object[]) array.getArray();
+        int[] ids = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ids[i] = ((Number) values[i]).intValue();
         }
-        mpa.setName(rs.getString("mpa_name"));
-        film.setMpa(mpa);
+        return ids;
+    }
 
-        return film;
-    };
-
-    @Override
-    public List<Film> getAllFilms() {
-        String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
-                "m.id AS mpa_id, m.name AS mpa_name " +
-                "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_id = m.id " +
-                "ORDER BY f.id";
-        List<Film> films = jdbcTemplate.query(sql, filmRowMapper);
-        films.forEach(this::setGenresForFilm);
-        films.forEach(this::setLikesForFilm);
-        return films;
+    @Override
+    public List<FilmView> getAllFilms() {
+        return jdbcTemplate.query(SELECT_FILMS_SQL + "ORDER BY f.id", FILM_VIEW_ROW_MAPPER);
     }
 
-    private void setLikesForFilm(Film film) {
-        String sql = "SELECT user_id FROM likes WHERE film_id = ?";
-        List<Integer> likes = jdbcTemplate.queryForList(sql, Integer.class, film.getId());
-        film.getLikes().clear();
-        film.getLikes().addAll(likes);
+    @Override
+    public List<FilmView> getFilmsPage(int afterId, int limit) {
+        String sql = SELECT_FILMS_SQL + "WHERE f.id > ? ORDER BY f.id LIMIT ?";
+        return jdbcTemplate.query(sql, FILM_VIEW_ROW_MAPPER, afterId, limit);
+    }
+
+    /**
+     * Выгружает весь каталог одним проходом тем же запросом, что и обычное чтение.
+     * На время выгрузки включается ленивое выполнение запросов H2, поэтому строки читаются курсором
+     * и не накапливаются в памяти.
+     */
+    @Override
+    public void exportFilms(int fetchSize, Consumer<FilmView> consumer) {
+        String sql = SELECT_FILMS_SQL + "ORDER BY f.id";
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement lazy = connection.createStatement()) {
+                lazy.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            }
+            try (PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(fetchSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    int rowNum = 0;
+                    while (rs.next()) {
+                        consumer.accept(FILM_VIEW_ROW_MAPPER.mapRow(rs, rowNum++));
+                    }
+                }
+            } finally {
+                try (Statement lazy = connection.createStatement()) {
+                    lazy.execute("SET LAZY_QUERY_EXECUTION FALSE");
+                }
+            }
+            return null;
+        });
     }
 
     @Override
+    @Transactional
     public Film createFilm(Film film) {
-        String sql = "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
         KeyHolder keyHolder = new GeneratedKeyHolder();
         jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            ps.setString(1, film.getName());
-            ps.setString(2, film.getDescription());
-            ps.setDate(3, Date.valueOf(film.getReleaseDate()));
-            ps.setInt(4, film.getDuration());
-            ps.setInt(5, film.getMpa().getId());
+            PreparedStatement ps = connection.prepareStatement(INSERT_FILM_SQL, Statement.RETURN_GENERATED_KEYS);
+            setFilmParams(ps, film);
             return ps;
         }, keyHolder);
 
@@ -85,14 +123,60 @@ public class FilmDbStorage implements FilmStorage {
         }
         film.setId(generatedId.intValue());
 
-        insertFilmGenres(film.getId(), film.getGenres());
+        insertFilmGenres(film.getId(), genreIds(film));
 
         return film;
     }
 
     @Override
+    @Transactional
+    public List<Film> createFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_FILM_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setFilmParams(ps, films.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != films.size()) {
+            throw new RuntimeException("Не удалось создать фильмы: получено " + keys.size() + " ID из " + films.size() + ".");
+        }
+        List<int[]> genreRows = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keys.get(i).values().iterator().next()).intValue());
+            genreIds(film).forEach(genreId -> genreRows.add(new int[]{film.getId(), genreId}));
+        }
+        insertGenreRows(genreRows);
+
+        return films;
+    }
+
+    private static void setFilmParams(PreparedStatement ps, Film film) throws SQLException {
+        ps.setString(1, film.getName());
+        ps.setString(2, film.getDescription());
+        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+        ps.setInt(4, film.getDuration());
+        ps.setInt(5, film.getMpa().getId());
+    }
+
+    @Override
+    @Transactional
     public Film updateFilm(Film film) {
-        String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? WHERE id = ?";
+        String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ?, " +
+                "version = version + 1 WHERE id = ?";
         int rows = jdbcTemplate.update(sql,
                 film.getName(),
                 film.getDescription(),
@@ -105,84 +189,319 @@ public class FilmDbStorage implements FilmStorage {
             throw new NotFoundException("Фильм с id " + film.getId() + " не найден.");
         }
 
-        // Обновляем жанры
-        deleteFilmGenres(film.getId());
-        insertFilmGenres(film.getId(), film.getGenres());
+        // Обновляем только изменившиеся жанры
+        Set<Integer> currentGenres = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT genre_id FROM film_genres WHERE film_id = ?", Integer.class, film.getId()));
+        Set<Integer> newGenres = genreIds(film);
+        List<Integer> removed = currentGenres.stream().filter(id -> !newGenres.contains(id)).toList();
+        List<Integer> added = newGenres.stream().filter(id -> !currentGenres.contains(id)).toList();
+        deleteFilmGenres(film.getId(), removed);
+        insertFilmGenres(film.getId(), added);
 
         return film;
     }
 
     @Override
-    public Film getFilmById(int id) {
-        String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
-                "m.id AS mpa_id, m.name AS mpa_name " +
-                "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_id = m.id " +
-                "WHERE f.id = ?";
+    public FilmView getFilmById(int id) {
         try {
-            Film film = jdbcTemplate.queryForObject(sql, filmRowMapper, id);
-            setGenresForFilm(film);
-            setLikesForFilm(film);
-            return film;
+            return jdbcTemplate.queryForObject(SELECT_FILMS_SQL + "WHERE f.id = ?", FILM_VIEW_ROW_MAPPER, id);
         } catch (EmptyResultDataAccessException e) {
             return null;
         }
     }
 
-    private void insertFilmGenres(int filmId, List<Genre> genres) {
-        if (genres == null || genres.isEmpty()) {
+    // Версия без загрузки самого фильма: одно чтение по первичному ключу для проверки If-None-Match
+    @Override
+    public Long getFilmVersion(int id) {
+        List<Long> versions = jdbcTemplate.queryForList("SELECT version FROM films WHERE id = ?", Long.class, id);
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    @Override
+    public List<FilmView> getFilmsByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Integer[] filmIds = ids.toArray(new Integer[0]);
+        List<FilmView> films = jdbcTemplate.query(SELECT_FILMS_SQL + "WHERE f.id = ANY(?)",
+                ps -> setIdArray(ps, filmIds), FILM_VIEW_ROW_MAPPER);
+
+        // Возвращаем фильмы в порядке запрошенных идентификаторов
+        Map<Integer, FilmView> filmsById = new HashMap<>();
+        films.forEach(film -> filmsById.put(film.id(), film));
+        List<FilmView> ordered = new ArrayList<>(films.size());
+        for (Integer id : ids) {
+            FilmView film = filmsById.get(id);
+            if (film != null) {
+                ordered.add(film);
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public List<FilmView> getPopularFilms(int count, Integer genreId, Integer year) {
+        StringBuilder sql = new StringBuilder(SELECT_FILMS_SQL).append("WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (genreId != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM film_genres fg WHERE fg.film_id = f.id AND fg.genre_id = ?)");
+            params.add(genreId);
+        }
+        if (year != null) {
+            // Диапазон по дате, а не EXTRACT(YEAR ...), чтобы условие могло использовать индекс по release_date
+            sql.append(" AND f.release_date >= ? AND f.release_date < ?");
+            params.add(Date.valueOf(LocalDate.of(year, 1, 1)));
+            params.add(Date.valueOf(LocalDate.of(year + 1, 1, 1)));
+        }
+        // Порядок совпадает с индексом idx_films_likes_count, поэтому сортировки всей таблицы нет
+        sql.append(" ORDER BY f.likes_count DESC, f.id LIMIT ?");
+        params.add(count);
+
+        return jdbcTemplate.query(sql.toString(), FILM_VIEW_ROW_MAPPER, params.toArray());
+    }
+
+    private void insertFilmGenres(int filmId, Collection<Integer> genreIds) {
+        insertGenreRows(genreIds.stream().map(genreId -> new int[]{filmId, genreId}).toList());
+    }
+
+    // Каждая строка — пара {film_id, genre_id}
+    private void insertGenreRows(List<int[]> rows) {
+        if (rows.isEmpty()) {
             return;
         }
 
+        // Существование жанров проверяет сервис по справочнику в памяти; здесь страхует внешний ключ
         String sql = "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)";
-        for (Genre genre : genres) {
-            if (genre != null && genre.getId() != null) {
-                if (genreExists(genre.getId())) {
-                    jdbcTemplate.update(sql, filmId, genre.getId());
-                } else {
-                    throw new NotFoundException("Жанр с id " + genre.getId() + " не найден.");
-                }
-            }
+        try {
+            jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+                ps.setInt(1, row[0]);
+                ps.setInt(2, row[1]);
+            });
+        } catch (DataIntegrityViolationException e) {
+            Set<Integer> genreIds = new LinkedHashSet<>();
+            rows.forEach(row -> genreIds.add(row[1]));
+            throw new NotFoundException("Жанр с id " + findMissingGenres(genreIds) + " не найден.");
         }
     }
 
-    private boolean genreExists(Integer genreId) {
-        String sql = "SELECT COUNT(*) FROM genres WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, genreId);
-        return count != null && count > 0;
+    private String findMissingGenres(Collection<Integer> genreIds) {
+        Integer[] ids = genreIds.toArray(new Integer[0]);
+        Set<Integer> existing = new HashSet<>(jdbcTemplate.query("SELECT id FROM genres WHERE id = ANY(?)",
+                ps -> setIdArray(ps, ids), (rs, rowNum) -> rs.getInt("id")));
+        return genreIds.stream()
+                .filter(id -> !existing.contains(id))
+                .map(String::valueOf)
+                .collect(Collectors.joining(", "));
     }
 
-    private void deleteFilmGenres(int filmId) {
-        String sql = "DELETE FROM film_genres WHERE film_id = ?";
-        jdbcTemplate.update(sql, filmId);
+    private void deleteFilmGenres(int filmId, Collection<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
+        String sql = "DELETE FROM film_genres WHERE film_id = ? AND genre_id = ?";
+        jdbcTemplate.batchUpdate(sql, genreIds, genreIds.size(), (ps, genreId) -> {
+            ps.setInt(1, filmId);
+            ps.setInt(2, genreId);
+        });
     }
 
-    private void setGenresForFilm(Film film) {
-        String sql = "SELECT g.id, g.name FROM genres g " +
-                "JOIN film_genres fg ON g.id = fg.genre_id " +
-                "WHERE fg.film_id = ?";
-        List<Genre> genres = jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Genre genre = new Genre();
-            genre.setId(rs.getInt("id"));
-            genre.setName(rs.getString("name"));
-            return genre;
-        }, film.getId());
-        film.setGenres(genres);
+    private static Set<Integer> genreIds(Film film) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        film.getGenres().forEach(genre -> ids.add(genre.getId()));
+        return ids;
+    }
+
+    private static void setIdArray(PreparedStatement ps, Integer[] ids) throws SQLException {
+        ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", ids));
     }
 
     @Override
+    public Map<Integer, Integer> getLikeCounts() {
+        String sql = "SELECT id, likes_count FROM films";
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            likeCounts.put(rs.getInt("id"), rs.getInt("likes_count"));
+        });
+        return likeCounts;
+    }
+
+    /**
+     * Исправляет расхождение films.likes_count с таблицей likes. Расходящиеся фильмы находятся
+     * одним проходом по агрегату лайков; их строки блокируются, и счётчик заменяется на COUNT(*).
+     * onRepaired получает исправленное значение каждого фильма, пока строки ещё заблокированы:
+     * лайк, ждущий блокировки, зафиксируется и будет учтён уже после этого значения.
+     * Возвращает исправленные значения по id фильма.
+     */
+    @Override
+    @Transactional
+    public Map<Integer, Integer> reconcileLikeCounts(BiConsumer<Integer, Integer> onRepaired) {
+        String driftSql = "SELECT f.id FROM films f " +
+                "LEFT JOIN (SELECT film_id, COUNT(*) AS likes FROM likes GROUP BY film_id) l ON l.film_id = f.id " +
+                "WHERE f.likes_count <> COALESCE(l.likes, 0)";
+        Integer[] filmIds = jdbcTemplate.queryForList(driftSql, Integer.class).toArray(new Integer[0]);
+        if (filmIds.length == 0) {
+            return Map.of();
+        }
+        Map<Integer, Integer> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT id, likes_count FROM films WHERE id = ANY(?) FOR UPDATE", ps -> setIdArray(ps, filmIds),
+                rs -> {
+                    stored.put(rs.getInt("id"), rs.getInt("likes_count"));
+                });
+        // Фильм без лайков в агрегат не попадёт, поэтому по умолчанию ноль
+        Map<Integer, Integer> repaired = new HashMap<>();
+        stored.keySet().forEach(filmId -> repaired.put(filmId, 0));
+        jdbcTemplate.query("SELECT film_id, COUNT(*) AS likes FROM likes WHERE film_id = ANY(?) GROUP BY film_id",
+                ps -> setIdArray(ps, filmIds),
+                rs -> {
+                    repaired.put(rs.getInt("film_id"), rs.getInt("likes"));
+                });
+        // Между поиском и блокировкой счётчик мог сойтись сам
+        repaired.entrySet().removeIf(entry -> entry.getValue().equals(stored.get(entry.getKey())));
+        jdbcTemplate.update("UPDATE films f SET likes_count = " +
+                "(SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id), version = version + 1 WHERE f.id = ANY(?)",
+                ps -> setIdArray(ps, filmIds));
+        repaired.forEach(onRepaired);
+        return repaired;
+    }
+
+    /**
+     * Лайк записывается одним запросом: INSERT ... SELECT вставляет строку, только если существуют
+     * и фильм, и пользователь. Выяснение, кого именно нет, выполняется лишь при неудаче.
+     * В той же транзакции увеличивается счётчик films.likes_count.
+     */
+    @Override
+    @Transactional
     public void addLike(int filmId, int userId) {
-        String sql = "INSERT INTO likes (film_id, user_id) VALUES (?, ?)";
+        String sql = "INSERT INTO likes (film_id, user_id) " +
+                "SELECT f.id, u.id FROM films f JOIN users u ON u.id = ? WHERE f.id = ?";
+        int rows;
         try {
-            jdbcTemplate.update(sql, filmId, userId);
-        } catch (org.springframework.dao.DuplicateKeyException e) {
+            rows = jdbcTemplate.update(sql, userId, filmId);
+        } catch (DuplicateKeyException e) {
             throw new IllegalArgumentException("Пользователь уже поставил лайк этому фильму.");
         }
+        if (rows == 0) {
+            // Строка не вставлена: hasLike сообщит, какого из двух объектов нет
+            hasLike(filmId, userId);
+            return;
+        }
+        jdbcTemplate.update("UPDATE films SET likes_count = likes_count + 1, version = version + 1 WHERE id = ?", filmId);
     }
 
     @Override
-    public void removeLike(int filmId, int userId) {
+    @Transactional
+    public boolean removeLike(int filmId, int userId) {
         String sql = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+        if (jdbcTemplate.update(sql, filmId, userId) > 0) {
+            jdbcTemplate.update("UPDATE films SET likes_count = likes_count - 1, version = version + 1 WHERE id = ?", filmId);
+            return true;
+        }
+        // Лайка не было; hasLike бросит NotFoundException, если нет фильма или пользователя
+        hasLike(filmId, userId);
+        return false;
+    }
+
+    /**
+     * Проверяет наличие лайка одним запросом; отсутствующий фильм или пользователь даёт NotFoundException.
+     */
+    @Override
+    public boolean hasLike(int filmId, int userId) {
+        String sql = "SELECT (SELECT COUNT(*) FROM films WHERE id = ?) AS films, " +
+                "(SELECT COUNT(*) FROM users WHERE id = ?) AS users, " +
+                "(SELECT COUNT(*) FROM likes WHERE film_id = ? AND user_id = ?) AS likes";
+        return Boolean.TRUE.equals(jdbcTemplate.query(sql, rs -> {
+            rs.next();
+            if (rs.getInt("films") == 0) {
+                throw new NotFoundException("Фильм с id " + filmId + " не найден.");
+            }
+            if (rs.getInt("users") == 0) {
+                throw new NotFoundException("Пользователь с id " + userId + " не найден.");
+            }
+            return rs.getInt("likes") > 0;
+        }, filmId, userId, filmId, userId));
+    }
+
+    // Пакетная запись накопленных лайков; MERGE и DELETE идемпотентны, повтор пакета безопасен
+    @Override
+    @Transactional
+    public void writeLikes(List<int[]> added, List<int[]> removed) {
+        if (!added.isEmpty()) {
+            String sql = "MERGE INTO likes (film_id, user_id) KEY (film_id, user_id) VALUES (?, ?)";
+            jdbcTemplate.batchUpdate(sql, added, added.size(), (ps, like) -> {
+                ps.setInt(1, like[0]);
+                ps.setInt(2, like[1]);
+            });
+        }
+        if (!removed.isEmpty()) {
+            String sql = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+            jdbcTemplate.batchUpdate(sql, removed, removed.size(), (ps, like) -> {
+                ps.setInt(1, like[0]);
+                ps.setInt(2, like[1]);
+            });
+        }
+        // MERGE не сообщает, была ли строка новой, поэтому счётчики затронутых фильмов пересчитываются
+        Integer[] filmIds = Stream.concat(added.stream(), removed.stream())
+                .map(like -> like[0])
+                .distinct()
+                .toArray(Integer[]::new);
+        if (filmIds.length > 0) {
+            jdbcTemplate.update("UPDATE films f SET likes_count = " +
+                    "(SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id), version = version + 1 WHERE f.id = ANY(?)",
+                    ps -> setIdArray(ps, filmIds));
+        }
+    }
+
+    // Матрица лайков: для каждого пользователя — отсортированный массив id понравившихся фильмов
+    @Override
+    public Map<Integer, int[]> getFilmIdsByUser() {
+        String sql = "SELECT user_id, film_id FROM likes ORDER BY user_id, film_id";
+        return jdbcTemplate.query(sql, rs -> {
+            Map<Integer, int[]> filmIdsByUser = new HashMap<>();
+            int[] films = new int[16];
+            int count = 0;
+            int currentUserId = 0;
+            while (rs.next()) {
+                int userId = rs.getInt("user_id");
+                if (count > 0 && userId != currentUserId) {
+                    filmIdsByUser.put(currentUserId, Arrays.copyOf(films, count));
+                    count = 0;
+                }
+                currentUserId = userId;
+                if (count == films.length) {
+                    films = Arrays.copyOf(films, count * 2);
+                }
+                films[count++] = rs.getInt("film_id");
+            }
+            if (count > 0) {
+                filmIdsByUser.put(currentUserId, Arrays.copyOf(films, count));
+            }
+            return filmIdsByUser;
+        });
+    }
+
+    /**
+     * Рекомендации одним запросом: similarUsers пользователей с наибольшим числом общих лайков,
+     * затем их фильмы, которых пользователь ещё не лайкнул, по сумме совпадений.
+     */
+    @Override
+    public List<Integer> getRecommendedFilmIds(int userId, int similarUsers, int limit) {
+        String sql = """
+                SELECT l.film_id, SUM(s.overlap) AS score
+                FROM (
+                    SELECT l2.user_id, COUNT(*) AS overlap
+                    FROM likes l1
+                    JOIN likes l2 ON l2.film_id = l1.film_id AND l2.user_id <> l1.user_id
+                    WHERE l1.user_id = ?
+                    GROUP BY l2.user_id
+                    ORDER BY overlap DESC, l2.user_id
+                    LIMIT ?
+                ) s
+                JOIN likes l ON l.user_id = s.user_id
+                WHERE NOT EXISTS (SELECT 1 FROM likes t WHERE t.user_id = ? AND t.film_id = l.film_id)
+                GROUP BY l.film_id
+                ORDER BY score DESC, l.film_id
+                LIMIT ?
+                """;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> rs.getInt("film_id"), userId, similarUsers, userId, limit);
     }
 }
@@ -1,19 +1,47 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
-    List<Film> getAllFilms();
+    List<FilmView> getAllFilms();
+
+    List<FilmView> getFilmsPage(int afterId, int limit);
+
+    void exportFilms(int fetchSize, Consumer<FilmView> consumer);
 
     Film createFilm(Film film);
 
+    List<Film> createFilms(List<Film> films);
+
     Film updateFilm(Film film);
 
-    Film getFilmById(int id);
+    FilmView getFilmById(int id);
+
+    Long getFilmVersion(int id);
+
+    List<FilmView> getFilmsByIds(List<Integer> ids);
+
+    List<FilmView> getPopularFilms(int count, Integer genreId, Integer year);
+
+    Map<Integer, Integer> getLikeCounts();
+
+    Map<Integer, Integer> reconcileLikeCounts(BiConsumer<Integer, Integer> onRepaired);
 
     void addLike(int filmId, int userId);
 
-    void removeLike(int filmId, int userId);
+    boolean removeLike(int filmId, int userId);
+
+    boolean hasLike(int filmId, int userId);
+
+    void writeLikes(List<int[]> added, List<int[]> removed);
+
+    Map<Integer, int[]> getFilmIdsByUser();
+
+    List<Integer> getRecommendedFilmIds(int userId, int similarUsers, int limit);
 }
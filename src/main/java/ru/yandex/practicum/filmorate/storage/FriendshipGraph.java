@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Граф дружбы в памяти (включается свойством filmorate.friends.graph.enabled): для каждого пользователя
+ * хранится отсортированный массив id друзей. Массивы не изменяются на месте — при добавлении или
+ * удалении друга пользователю подставляется новая копия, поэтому читатели работают без блокировок.
+ * Общие друзья находятся пересечением двух массивов, без обращения к таблице friendships.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.friends.graph.enabled", havingValue = "true")
+@Slf4j
+public class FriendshipGraph {
+
+    private final UserStorage userStorage;
+    private final Map<Integer, int[]> friendsByUser = new ConcurrentHashMap<>();
+
+    public FriendshipGraph(UserStorage userStorage) {
+        this.userStorage = userStorage;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        Map<Integer, int[]> loaded = userStorage.getFriendIdsByUser();
+        friendsByUser.clear();
+        friendsByUser.putAll(loaded);
+        long edges = getEdgeCount();
+        long bytes = estimateMemoryBytes();
+        log.info("Граф дружбы загружен: пользователей {}, связей {}, память ~{} КБ ({} байт на связь)",
+                friendsByUser.size(), edges, bytes / 1024, edges == 0 ? 0 : bytes / edges);
+    }
+
+    // Изменения графа применяются после фиксации транзакции, чтобы откат не оставил их в памяти
+    public void addFriend(int userId, int friendId) {
+        afterCommit(() -> friendsByUser.compute(userId,
+                (id, friends) -> SortedIntArrays.insert(friends, friendId)));
+    }
+
+    public void removeFriend(int userId, int friendId) {
+        afterCommit(() -> friendsByUser.computeIfPresent(userId,
+                (id, friends) -> SortedIntArrays.remove(friends, friendId)));
+    }
+
+    public int[] getFriendIds(int userId) {
+        return friendsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    public int[] getCommonFriendIds(int userId, int otherId) {
+        return SortedIntArrays.intersect(getFriendIds(userId), getFriendIds(otherId));
+    }
+
+    /**
+     * Двухшаговый обход графа: друзья друзей, которые ещё не друзья пользователя, по убыванию числа
+     * общих друзей, при равенстве — по id. На каждом шаге берутся не более fanOut друзей узла, так что
+     * работа ограничена fanOut² независимо от размера графа. Совпадения считает {@link IntCounter}
+     * без упаковки id и счётчиков.
+     */
+    public int[] suggestFriends(int userId, int fanOut, int limit) {
+        int[] friends = getFriendIds(userId);
+        int hop1 = Math.min(friends.length, fanOut);
+        IntCounter mutualCounts = new IntCounter(hop1 * 16);
+        for (int i = 0; i < hop1; i++) {
+            int[] friendsOfFriend = getFriendIds(friends[i]);
+            for (int j = 0; j < Math.min(friendsOfFriend.length, fanOut); j++) {
+                int candidate = friendsOfFriend[j];
+                if (candidate != userId && Arrays.binarySearch(friends, candidate) < 0) {
+                    mutualCounts.add(candidate, 1);
+                }
+            }
+        }
+        return mutualCounts.top(limit);
+    }
+
+    public long getEdgeCount() {
+        return friendsByUser.values().stream().mapToLong(friends -> friends.length).sum();
+    }
+
+    // Оценка занимаемой памяти: массивы друзей с заголовками и выравниванием плюс записи хеш-таблицы
+    public long estimateMemoryBytes() {
+        return SortedIntArrays.estimateMemoryBytes(friendsByUser);
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Метрики кэша страниц MVStore из INFORMATION_SCHEMA.SETTINGS: доля попаданий и заполнение кэша.
+ * По ним подбирается CACHE_SIZE в URL базы. Значения читаются запросом при каждом снятии метрик;
+ * база в памяти этих сведений не публикует, и метрики принимают значение NaN.
+ */
+@Component
+public class H2CacheMetrics implements MeterBinder {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public H2CacheMetrics(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("h2.cache.hit.ratio", this, metrics -> metrics.readInfo("info.CACHE_HIT_RATIO") / 100)
+                .description("Доля чтений страниц MVStore, обслуженных кэшем")
+                .register(registry);
+        Gauge.builder("h2.cache.size", this, metrics -> metrics.readInfo("info.CACHE_SIZE"))
+                .description("Занятый объём кэша страниц MVStore")
+                .baseUnit("megabytes")
+                .register(registry);
+        Gauge.builder("h2.cache.max.size", this, metrics -> metrics.readInfo("info.CACHE_MAX_SIZE"))
+                .description("Предельный объём кэша страниц MVStore")
+                .baseUnit("megabytes")
+                .register(registry);
+    }
+
+    double readInfo(String name) {
+        try {
+            List<String> values = jdbcTemplate.queryForList(
+                    "SELECT SETTING_VALUE FROM INFORMATION_SCHEMA.SETTINGS WHERE SETTING_NAME = ?", String.class, name);
+            return values.isEmpty() ? Double.NaN : Double.parseDouble(values.get(0));
+        } catch (DataAccessException | NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.h2.tools.Server;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AbstractDependsOnBeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Встроенный TCP-сервер H2 (включается свойством filmorate.h2.tcp-server.enabled). Экземпляр, на котором
+ * он включён, владеет файлом базы, остальные подключаются к нему по jdbc:h2:tcp://. В отличие от
+ * AUTO_SERVER владелец не переходит от процесса к процессу, поэтому нет пауз на передачу блокировки файла.
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.h2.tcp-server.enabled", havingValue = "true")
+public class H2TcpServerConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public Server h2TcpServer(@Value("${filmorate.h2.tcp-server.port:9092}") int port,
+                              @Value("${filmorate.h2.tcp-server.allow-others:false}") boolean allowOthers,
+                              @Value("${filmorate.h2.tcp-server.base-dir:./db}") String baseDir,
+                              @Value("${filmorate.h2.tcp-server.database:filmorate}") String database,
+                              @Value("${spring.datasource.username}") String username,
+                              @Value("${spring.datasource.password}") String password) throws SQLException {
+        createDatabaseIfMissing(baseDir, database, username, password);
+        // Без -ifNotExists клиенты сервера не могут создавать новые базы, только открывать существующую
+        List<String> args = new ArrayList<>(List.of("-tcpPort", String.valueOf(port), "-baseDir", baseDir));
+        if (allowOthers) {
+            args.add("-tcpAllowOthers");
+        }
+        return Server.createTcpServer(args.toArray(new String[0]));
+    }
+
+    // База создаётся один раз локальным соединением до старта сервера; её владельцем становится
+    // пользователь приложения с заданным паролем
+    private static void createDatabaseIfMissing(String baseDir, String database, String username, String password)
+            throws SQLException {
+        if (Files.exists(Path.of(baseDir, database + ".mv.db"))) {
+            return;
+        }
+        try (Connection ignored = DriverManager.getConnection(
+                "jdbc:h2:" + Path.of(baseDir, database).toAbsolutePath(), username, password)) {
+            // Открытия соединения достаточно, чтобы H2 создала файл базы
+        }
+    }
+
+    // Пул соединений может открыть первое соединение сразу, поэтому сервер должен стартовать раньше
+    @Bean
+    public static DataSourceDependsOnH2Server dataSourceDependsOnH2Server() {
+        return new DataSourceDependsOnH2Server();
+    }
+
+    static class DataSourceDependsOnH2Server extends AbstractDependsOnBeanFactoryPostProcessor {
+        DataSourceDependsOnH2Server() {
+            super(DataSource.class, "h2TcpServer");
+        }
+    }
+}
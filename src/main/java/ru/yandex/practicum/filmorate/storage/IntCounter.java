@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+
+/**
+ * Счётчик по положительным int-ключам с открытой адресацией: без упаковки ключей и значений,
+ * поэтому подходит для подсчёта сотен тысяч совпадений в одном запросе.
+ */
+final class IntCounter {
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    IntCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+    }
+
+    // Ключ 0 означает пустую ячейку, id в базе начинаются с 1
+    void add(int key, int delta) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                counts[slot] = delta;
+                grow();
+                return;
+            }
+        }
+        counts[slot] += delta;
+    }
+
+    /**
+     * Ключи с наибольшими значениями, при равенстве — с меньшим ключом. Отбор идёт через
+     * min-кучу из limit элементов, без сортировки всех ключей.
+     */
+    int[] top(int limit) {
+        long[] heap = new long[Math.min(limit, size)];
+        int heapSize = 0;
+        for (int slot = 0; slot < keys.length && heap.length > 0; slot++) {
+            if (keys[slot] == 0) {
+                continue;
+            }
+            // Больший счётчик и меньший ключ дают большее число
+            long rank = ((long) counts[slot] << 32) | (Integer.MAX_VALUE - keys[slot]);
+            if (heapSize < heap.length) {
+                heap[heapSize] = rank;
+                siftUp(heap, heapSize++);
+            } else if (rank > heap[0]) {
+                heap[0] = rank;
+                siftDown(heap, heapSize);
+            }
+        }
+        long[] ranked = Arrays.copyOf(heap, heapSize);
+        Arrays.sort(ranked);
+        int[] result = new int[heapSize];
+        for (int i = 0; i < heapSize; i++) {
+            result[i] = Integer.MAX_VALUE - (int) ranked[heapSize - 1 - i];
+        }
+        return result;
+    }
+
+    int get(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldCounts.length * 2];
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                add(oldKeys[slot], oldCounts[slot]);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (right < size && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(heap, smallest, index);
+            index = smallest;
+        }
+    }
+
+    private static void swap(long[] heap, int i, int j) {
+        long tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Ограничитель одновременных обращений к базе (включается свойством filmorate.jdbc.limiter.enabled),
+ * нужен прежде всего при обработке запросов на виртуальных потоках. По умолчанию число разрешений
+ * равно размеру пула Hikari, так что соединение, получившее разрешение, берётся из пула без ожидания.
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.jdbc.limiter.enabled", havingValue = "true")
+public class JdbcLimiterConfiguration {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(Environment environment) {
+        int configured = environment.getProperty("filmorate.jdbc.limiter.max-concurrency", Integer.class, 0);
+        long acquireTimeoutMs = environment.getProperty("filmorate.jdbc.limiter.acquire-timeout-ms", Long.class, 30000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitingDataSource) {
+                    return bean;
+                }
+                int maxConcurrency = configured > 0 ? configured : poolSize(bean);
+                return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeoutMs);
+            }
+        };
+    }
+
+    // Пока пул не запущен, Hikari возвращает -1 для незаданного размера; по умолчанию пул — 10 соединений
+    private static int poolSize(Object dataSource) {
+        if (dataSource instanceof HikariDataSource hikari && hikari.getMaximumPoolSize() > 0) {
+            return hikari.getMaximumPoolSize();
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+
+    @Bean
+    public MeterBinder jdbcLimiterMetrics(DataSource dataSource) throws SQLException {
+        ConcurrencyLimitingDataSource limiter = dataSource.unwrap(ConcurrencyLimitingDataSource.class);
+        return registry -> {
+            Gauge.builder("jdbc.limiter.active", limiter, ConcurrencyLimitingDataSource::getActiveConnections)
+                    .description("Соединения, выданные через ограничитель")
+                    .register(registry);
+            Gauge.builder("jdbc.limiter.waiting", limiter, ConcurrencyLimitingDataSource::getWaitingThreads)
+                    .description("Запросы, ожидающие разрешения на соединение")
+                    .register(registry);
+            Gauge.builder("jdbc.limiter.max", limiter, ConcurrencyLimitingDataSource::getMaxConcurrency)
+                    .description("Предел одновременных соединений")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,281 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Отложенная запись лайков (включается свойством filmorate.likes.write-behind.enabled). Лайки и их отмены
+ * копятся в памяти, пара «лайк — отмена» одного пользователя схлопывается, а в базу изменения уходят
+ * пакетом по размеру буфера или по таймеру. При заполнении буфера вызывающий поток ждёт записи пакета.
+ * Перед чтением лайков из базы нужно вызвать {@link #flush()}, перед чтением отдельных фильмов —
+ * {@link #flush(Collection)}.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+@Slf4j
+public class LikeWriteBuffer {
+
+    private final FilmStorage filmStorage;
+    // Кэш фильмов; записанные пакетом фильмы удаляются из него после фиксации
+    private final FilmCache filmCache;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    // Пакеты пишутся строго по одному, чтобы не переставить лайк и его отмену
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Желаемое состояние пар, отличающееся от записанного в базе
+    private Map<LikeKey, Boolean> pending = new HashMap<>();
+    // Число пар каждого фильма в pending: по нему чтение фильма решает, нужен ли сброс
+    private Map<Integer, Integer> pendingFilms = new HashMap<>();
+    // Пакет, который сейчас пишется; пока запись не завершена, его состояние считается записанным
+    private Map<LikeKey, Boolean> flushing = Map.of();
+    private Set<Integer> flushingFilms = Set.of();
+    // Номер завершённого сброса: по нему видно, не изменилась ли база, пока состояние пары читалось без блокировки
+    private long flushGeneration;
+    private ScheduledExecutorService flusher;
+
+    public LikeWriteBuffer(FilmStorage filmStorage, Optional<FilmCache> filmCache,
+                           @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                           @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                           @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs) {
+        this.filmStorage = filmStorage;
+        this.filmCache = filmCache.orElse(null);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Отложенная запись лайков включена: буфер {}, пакет {}, интервал {} мс",
+                capacity, batchSize, flushIntervalMs);
+    }
+
+    // Остаток буфера записывается при остановке приложения, до закрытия пула соединений
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(flushIntervalMs + 5000, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    public void addLike(int filmId, int userId) {
+        if (!setLiked(new LikeKey(filmId, userId), true)) {
+            throw new IllegalArgumentException("Пользователь уже поставил лайк этому фильму.");
+        }
+    }
+
+    public boolean removeLike(int filmId, int userId) {
+        return setLiked(new LikeKey(filmId, userId), false);
+    }
+
+    /**
+     * Синхронно записывает всё накопленное. Ошибка записи возвращает пакет в буфер и пробрасывается.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<LikeKey, Boolean> batch;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+                pendingFilms = new HashMap<>();
+                flushing = batch;
+                flushingFilms = batch.keySet().stream().map(LikeKey::filmId).collect(Collectors.toSet());
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            boolean written = false;
+            try {
+                write(batch);
+                written = true;
+            } finally {
+                finishFlush(batch, written);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Записывает накопленное, только если в буфере или в записываемом пакете есть лайки этих фильмов:
+     * после возврата их likes_count в базе учитывает все принятые лайки, а чтение других фильмов
+     * не сбрасывает буфер раньше времени.
+     */
+    public void flush(Collection<Integer> filmIds) {
+        lock.lock();
+        try {
+            if (filmIds.stream().noneMatch(filmId -> pendingFilms.containsKey(filmId)
+                    || flushingFilms.contains(filmId))) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Если пары только в записываемом пакете, flush дождётся его записи и вернётся
+        flush();
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size() + flushing.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает false, если пара уже в нужном состоянии. Пара, которой нет в буферах, читается из базы
+     * без блокировки буфера, чтобы запрос не задерживал остальные лайки и запись пакетов; заодно проверяется
+     * существование фильма и пользователя. Прочитанное значение используется, только если за это время
+     * пара не попала в буфер и не завершился ни один сброс; иначе чтение повторяется.
+     */
+    private boolean setLiked(LikeKey key, boolean liked) {
+        Boolean persistedLiked = null;
+        long readGeneration = -1;
+        while (true) {
+            long generation;
+            lock.lock();
+            try {
+                awaitCapacity(key);
+                Boolean pendingLiked = pending.get(key);
+                if (pendingLiked != null) {
+                    if (pendingLiked == liked) {
+                        return false;
+                    }
+                    // В буфере лежит противоположное записанному, значит новое состояние совпадает с базой
+                    removePending(key);
+                    return true;
+                }
+                Boolean knownLiked = flushing.get(key);
+                if (knownLiked == null && readGeneration == flushGeneration) {
+                    knownLiked = persistedLiked;
+                }
+                if (knownLiked != null) {
+                    if (knownLiked == liked) {
+                        return false;
+                    }
+                    putPending(key, liked);
+                    if (pending.size() >= batchSize) {
+                        requestFlush();
+                    }
+                    return true;
+                }
+                generation = flushGeneration;
+            } finally {
+                lock.unlock();
+            }
+            persistedLiked = filmStorage.hasLike(key.filmId(), key.userId());
+            readGeneration = generation;
+        }
+    }
+
+    private void awaitCapacity(LikeKey key) {
+        while (pending.size() >= capacity && !pending.containsKey(key)) {
+            requestFlush();
+            try {
+                notFull.await(flushIntervalMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ожидание записи лайков прервано.", e);
+            }
+        }
+    }
+
+    private void requestFlush() {
+        try {
+            flusher.execute(this::flushQuietly);
+        } catch (RejectedExecutionException e) {
+            // Приложение останавливается: буфер допишет stop()
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать пакет лайков, повтор при следующей записи", e);
+        }
+    }
+
+    private void write(Map<LikeKey, Boolean> batch) {
+        List<int[]> added = new ArrayList<>();
+        List<int[]> removed = new ArrayList<>();
+        batch.forEach((key, liked) -> (liked ? added : removed).add(new int[]{key.filmId(), key.userId()}));
+        filmStorage.writeLikes(added, removed);
+        if (filmCache != null) {
+            filmCache.invalidateAll(batch.keySet().stream().map(LikeKey::filmId).collect(Collectors.toSet()));
+        }
+        log.debug("Записан пакет лайков: добавлено {}, удалено {}", added.size(), removed.size());
+    }
+
+    private void finishFlush(Map<LikeKey, Boolean> batch, boolean written) {
+        lock.lock();
+        try {
+            flushing = Map.of();
+            flushingFilms = Set.of();
+            flushGeneration++;
+            if (!written) {
+                // Пакет не записан: новое изменение той же пары возвращает её к состоянию базы
+                batch.forEach((key, liked) -> {
+                    if (pending.containsKey(key)) {
+                        removePending(key);
+                    } else {
+                        putPending(key, liked);
+                    }
+                });
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Вызываются под lock
+    private void putPending(LikeKey key, boolean liked) {
+        pending.put(key, liked);
+        pendingFilms.merge(key.filmId(), 1, Integer::sum);
+    }
+
+    private void removePending(LikeKey key) {
+        pending.remove(key);
+        pendingFilms.computeIfPresent(key.filmId(), (filmId, pairs) -> pairs == 1 ? null : pairs - 1);
+    }
+
+    private record LikeKey(int filmId, int userId) {
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Разреженная матрица лайков в памяти (включается свойством filmorate.recommendations.index.enabled):
+ * для каждого пользователя — отсортированный массив id понравившихся фильмов, для каждого фильма —
+ * массив id поставивших лайк. По ней ищутся пользователи с наибольшим числом общих лайков, не перебирая
+ * всех пользователей: кандидаты берутся только из списков фильмов, которые лайкнул сам пользователь.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.recommendations.index.enabled", havingValue = "true")
+@Slf4j
+public class LikesIndex {
+
+    private final FilmStorage filmStorage;
+    private final int maxPostings;
+    private final Map<Integer, int[]> filmsByUser = new ConcurrentHashMap<>();
+    private final Map<Integer, int[]> usersByFilm = new ConcurrentHashMap<>();
+
+    public LikesIndex(FilmStorage filmStorage,
+                      @Value("${filmorate.recommendations.max-postings:50000}") int maxPostings) {
+        this.filmStorage = filmStorage;
+        this.maxPostings = maxPostings;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        Map<Integer, int[]> loaded = filmStorage.getFilmIdsByUser();
+        filmsByUser.clear();
+        usersByFilm.clear();
+        filmsByUser.putAll(loaded);
+        usersByFilm.putAll(invert(loaded));
+        long likes = filmsByUser.values().stream().mapToLong(films -> films.length).sum();
+        long bytes = estimateMemoryBytes();
+        log.info("Индекс лайков загружен: пользователей {}, фильмов {}, лайков {}, память ~{} КБ",
+                filmsByUser.size(), usersByFilm.size(), likes, bytes / 1024);
+    }
+
+    public void addLike(int filmId, int userId) {
+        filmsByUser.compute(userId, (id, films) -> SortedIntArrays.insert(films, filmId));
+        usersByFilm.compute(filmId, (id, users) -> SortedIntArrays.insert(users, userId));
+    }
+
+    public void removeLike(int filmId, int userId) {
+        filmsByUser.computeIfPresent(userId, (id, films) -> SortedIntArrays.remove(films, filmId));
+        usersByFilm.computeIfPresent(filmId, (id, users) -> SortedIntArrays.remove(users, userId));
+    }
+
+    public int[] getLikedFilmIds(int userId) {
+        return filmsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    /**
+     * Рекомендации: находятся similarUsers пользователей с наибольшим числом общих лайков,
+     * и их фильмы, которых пользователь ещё не лайкнул, ранжируются по сумме этих совпадений.
+     * Списки лайкнувших просматриваются от самых коротких (редкие фильмы точнее говорят о вкусе),
+     * а общее число просмотренных записей ограничено maxPostings — так запрос остаётся быстрым
+     * и для пользователя с десятками тысяч лайков, и для фильмов с миллионной аудиторией. Список, который
+     * не помещается в остаток бюджета, прореживается с равным шагом, поэтому пользователь, лайкавший
+     * только популярные фильмы, получает приближённые рекомендации, а не пустой ответ.
+     */
+    public int[] recommendFilms(int userId, int similarUsers, int limit) {
+        int[] likedFilms = getLikedFilmIds(userId);
+        int[][] postings = Arrays.stream(likedFilms)
+                .mapToObj(filmId -> usersByFilm.getOrDefault(filmId, SortedIntArrays.EMPTY))
+                .sorted(Comparator.comparingInt(users -> users.length))
+                .toArray(int[][]::new);
+        long total = Arrays.stream(postings).mapToLong(users -> users.length).sum();
+        IntCounter overlaps = new IntCounter((int) Math.min(Math.min(total, maxPostings), 1 << 20));
+        long budget = maxPostings;
+        for (int i = 0; i < postings.length && budget > 0; i++) {
+            int[] users = postings[i];
+            int step = users.length <= budget ? 1 : (int) ((users.length + budget - 1) / budget);
+            for (int j = 0; j < users.length; j += step) {
+                if (users[j] != userId) {
+                    overlaps.add(users[j], 1);
+                }
+            }
+            budget -= (users.length + step - 1) / step;
+        }
+
+        int[] similar = overlaps.top(similarUsers);
+        IntCounter scores = new IntCounter(64);
+        for (int similarId : similar) {
+            int overlap = overlaps.get(similarId);
+            for (int filmId : getLikedFilmIds(similarId)) {
+                if (Arrays.binarySearch(likedFilms, filmId) < 0) {
+                    scores.add(filmId, overlap);
+                }
+            }
+        }
+        return scores.top(limit);
+    }
+
+    public long estimateMemoryBytes() {
+        return SortedIntArrays.estimateMemoryBytes(filmsByUser) + SortedIntArrays.estimateMemoryBytes(usersByFilm);
+    }
+
+    // Транспонирование: сначала считаются длины списков, затем они заполняются по возрастанию id
+    private static Map<Integer, int[]> invert(Map<Integer, int[]> filmsByUser) {
+        Map<Integer, Integer> sizes = new HashMap<>();
+        filmsByUser.values().forEach(films -> {
+            for (int filmId : films) {
+                sizes.merge(filmId, 1, Integer::sum);
+            }
+        });
+        Map<Integer, int[]> usersByFilm = new HashMap<>();
+        sizes.forEach((filmId, size) -> usersByFilm.put(filmId, new int[size]));
+        Map<Integer, Integer> filled = new HashMap<>();
+        filmsByUser.keySet().stream().sorted().forEach(userId -> {
+            for (int filmId : filmsByUser.get(userId)) {
+                usersByFilm.get(filmId)[filled.merge(filmId, 1, Integer::sum) - 1] = userId;
+            }
+        });
+        return usersByFilm;
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш справочников жанров и рейтингов MPA. Таблицы маленькие и почти не меняются, поэтому
+ * загружаются целиком при старте и отдаются из памяти. После изменения справочников в базе
+ * нужно вызвать {@link #refresh()}. Версия справочников для ETag считается по их содержимому,
+ * поэтому совпадает на всех экземплярах приложения и не меняется при перезапуске.
+ */
+@Component
+@Slf4j
+public class ReferenceDataCache {
+
+    private final GenreDbStorage genreDbStorage;
+    private final MPADbStorage mpaDbStorage;
+
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataCache(GenreDbStorage genreDbStorage, MPADbStorage mpaDbStorage) {
+        this.genreDbStorage = genreDbStorage;
+        this.mpaDbStorage = mpaDbStorage;
+    }
+
+    @PostConstruct
+    public void refresh() {
+        List<Genre> genres = List.copyOf(genreDbStorage.getAllGenres());
+        List<MPA> mpaRatings = List.copyOf(mpaDbStorage.getAllMPA());
+        snapshot = new Snapshot(genres, toMap(genres, Genre::getId), mpaRatings, toMap(mpaRatings, MPA::getId),
+                Integer.toUnsignedLong(Objects.hash(genres, mpaRatings)));
+        log.info("Справочники загружены: жанров {}, рейтингов MPA {}", genres.size(), mpaRatings.size());
+    }
+
+    public long getVersion() {
+        return snapshot.version();
+    }
+
+    public List<Genre> getAllGenres() {
+        return snapshot.genres();
+    }
+
+    public Genre getGenreById(int id) {
+        Genre genre = snapshot.genresById().get(id);
+        if (genre == null) {
+            throw new NotFoundException("Жанр с id " + id + " не найден.");
+        }
+        return genre;
+    }
+
+    public List<MPA> getAllMPA() {
+        return snapshot.mpaRatings();
+    }
+
+    public MPA getMPAById(int id) {
+        MPA mpa = snapshot.mpaById().get(id);
+        if (mpa == null) {
+            throw new NotFoundException("MPA с id " + id + " не найден.");
+        }
+        return mpa;
+    }
+
+    private static <T> Map<Integer, T> toMap(List<T> values, Function<T, Integer> idExtractor) {
+        return values.stream().collect(Collectors.toUnmodifiableMap(idExtractor, Function.identity()));
+    }
+
+    private record Snapshot(List<Genre> genres, Map<Integer, Genre> genresById,
+                            List<MPA> mpaRatings, Map<Integer, MPA> mpaById, long version) {
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Операции над отсортированными массивами id без повторов. Массивы не изменяются на месте:
+ * вставка и удаление возвращают новую копию, поэтому их можно отдавать читателям без блокировок.
+ */
+final class SortedIntArrays {
+
+    static final int[] EMPTY = new int[0];
+
+    // Оценки для 64-битной JVM со сжатыми указателями
+    private static final long ARRAY_HEADER_BYTES = 16;
+    private static final long MAP_ENTRY_BYTES = 32 + 16 + 8;
+
+    private SortedIntArrays() {
+    }
+
+    static int[] insert(int[] values, int value) {
+        if (values == null) {
+            return new int[]{value};
+        }
+        int position = Arrays.binarySearch(values, value);
+        if (position >= 0) {
+            return values;
+        }
+        int insertAt = -position - 1;
+        int[] updated = new int[values.length + 1];
+        System.arraycopy(values, 0, updated, 0, insertAt);
+        updated[insertAt] = value;
+        System.arraycopy(values, insertAt, updated, insertAt + 1, values.length - insertAt);
+        return updated;
+    }
+
+    // null вместо пустого массива удаляет запись из таблицы при compute
+    static int[] remove(int[] values, int value) {
+        int position = Arrays.binarySearch(values, value);
+        if (position < 0) {
+            return values;
+        }
+        if (values.length == 1) {
+            return null;
+        }
+        int[] updated = new int[values.length - 1];
+        System.arraycopy(values, 0, updated, 0, position);
+        System.arraycopy(values, position + 1, updated, position, values.length - position - 1);
+        return updated;
+    }
+
+    /**
+     * Пересечение отсортированных массивов. При сопоставимых размерах — слиянием за O(n + m),
+     * если один массив много меньше другого — двоичным поиском его элементов в большом.
+     */
+    static int[] intersect(int[] first, int[] second) {
+        int[] small = first.length <= second.length ? first : second;
+        int[] large = small == first ? second : first;
+        int[] result = new int[small.length];
+        int count = 0;
+        if ((long) small.length * 32 < large.length) {
+            int from = 0;
+            for (int id : small) {
+                int position = Arrays.binarySearch(large, from, large.length, id);
+                if (position >= 0) {
+                    result[count++] = id;
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.length && j < large.length) {
+                if (small[i] < large[j]) {
+                    i++;
+                } else if (small[i] > large[j]) {
+                    j++;
+                } else {
+                    result[count++] = small[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Оценка памяти таблицы массивов: массивы с заголовками и выравниванием плюс записи хеш-таблицы.
+     */
+    static long estimateMemoryBytes(Map<Integer, int[]> arrays) {
+        long bytes = 0;
+        for (int[] values : arrays.values()) {
+            bytes += align(ARRAY_HEADER_BYTES + 4L * values.length) + MAP_ENTRY_BYTES;
+        }
+        return bytes;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
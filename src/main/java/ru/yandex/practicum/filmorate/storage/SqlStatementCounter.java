@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Счётчик SQL-выражений, выполненных в текущем потоке за время запроса. Фильтр запроса открывает
+ * счёт, {@link CountingJdbcTemplate} увеличивает его на каждое выражение. Вне запроса счёт не ведётся.
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    // Возвращает число выражений и закрывает счёт
+    public static int stop() {
+        int count = current();
+        COUNT.remove();
+        return count;
+    }
+
+    public static int current() {
+        int[] count = COUNT.get();
+        return count == null ? 0 : count[0];
+    }
+
+    static void increment() {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Метрики публичных методов хранилищ FilmDbStorage, UserDbStorage, GenreDbStorage и MPADbStorage:
+ * таймер storage.method с гистограммой задержек и счётчиком вызовов, а для методов, возвращающих
+ * коллекции или объекты, — распределение storage.method.rows по числу строк результата.
+ * Вызовы внутри одного хранилища идут мимо прокси и не учитываются повторно.
+ */
+@Aspect
+public class StorageMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    public StorageMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage.FilmDbStorage.*(..)) || "
+            + "execution(public * ru.yandex.practicum.filmorate.storage.UserDbStorage.*(..)) || "
+            + "execution(public * ru.yandex.practicum.filmorate.storage.GenreDbStorage.*(..)) || "
+            + "execution(public * ru.yandex.practicum.filmorate.storage.MPADbStorage.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String storage = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            Object result = joinPoint.proceed();
+            recordRows(storage, method, ((MethodSignature) joinPoint.getSignature()).getReturnType(), result);
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("storage.method")
+                    .description("Время выполнения метода хранилища")
+                    .tags("storage", storage, "method", method, "exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private void recordRows(String storage, String method, Class<?> returnType, Object result) {
+        if (returnType.isPrimitive()
+                || Number.class.isAssignableFrom(returnType) || returnType == Boolean.class) {
+            // void, флаги и счётчики — не строки результата
+            return;
+        }
+        int rows;
+        if (result == null) {
+            rows = 0;
+        } else if (result instanceof Collection<?> collection) {
+            rows = collection.size();
+        } else if (result instanceof Map<?, ?> map) {
+            rows = map.size();
+        } else if (result instanceof int[] array) {
+            rows = array.length;
+        } else {
+            rows = 1;
+        }
+        DistributionSummary.builder("storage.method.rows")
+                .description("Число строк, возвращённых методом хранилища")
+                .baseUnit("rows")
+                .tags("storage", storage, "method", method)
+                .register(meterRegistry)
+                .record(rows);
+    }
+}
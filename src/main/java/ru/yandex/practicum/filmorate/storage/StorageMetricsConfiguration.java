@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.jdbc.JdbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Метрики доступа к базе: JdbcTemplate со счётчиком выражений вместо стандартного и таймеры методов хранилищ.
+ */
+@Configuration
+public class StorageMetricsConfiguration {
+
+    // Заменяет JdbcTemplate из автоконфигурации, поэтому переносит и его настройки spring.jdbc.template.*
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource, JdbcProperties properties) {
+        JdbcTemplate jdbcTemplate = new CountingJdbcTemplate(dataSource);
+        JdbcProperties.Template template = properties.getTemplate();
+        jdbcTemplate.setFetchSize(template.getFetchSize());
+        jdbcTemplate.setMaxRows(template.getMaxRows());
+        if (template.getQueryTimeout() != null) {
+            jdbcTemplate.setQueryTimeout(Math.toIntExact(template.getQueryTimeout().getSeconds()));
+        }
+        return jdbcTemplate;
+    }
+
+    @Bean
+    public StorageMetricsAspect storageMetricsAspect(MeterRegistry meterRegistry) {
+        return new StorageMetricsAspect(meterRegistry);
+    }
+}
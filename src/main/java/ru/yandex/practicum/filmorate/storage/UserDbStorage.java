@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
@@ -11,13 +12,20 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Component
 @Slf4j
 public class UserDbStorage implements UserStorage {
 
+    private static final String INSERT_USER_SQL = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
+
     private final JdbcTemplate jdbcTemplate;
 
     public UserDbStorage(JdbcTemplate jdbcTemplate) {
@@ -40,16 +48,18 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(sql, userRowMapper);
     }
 
+    @Override
+    public List<User> getUsersPage(int afterId, int limit) {
+        String sql = "SELECT id, email, login, name, birthday FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        return jdbcTemplate.query(sql, userRowMapper, afterId, limit);
+    }
+
     @Override
     public User createUser(User user) {
-        String sql = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
         KeyHolder keyHolder = new GeneratedKeyHolder();
         jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            ps.setString(1, user.getEmail());
-            ps.setString(2, user.getLogin());
-            ps.setString(3, user.getName());
-            ps.setDate(4, Date.valueOf(user.getBirthday()));
+            PreparedStatement ps = connection.prepareStatement(INSERT_USER_SQL, Statement.RETURN_GENERATED_KEYS);
+            setUserParams(ps, user);
             return ps;
         }, keyHolder);
 
@@ -58,6 +68,43 @@ public class UserDbStorage implements UserStorage {
         return user;
     }
 
+    @Override
+    public List<User> createUsers(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_USER_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setUserParams(ps, users.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != users.size()) {
+            throw new RuntimeException("Не удалось создать пользователей: получено " + keys.size() + " ID из " + users.size() + ".");
+        }
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+        }
+        return users;
+    }
+
+    private static void setUserParams(PreparedStatement ps, User user) throws SQLException {
+        ps.setString(1, user.getEmail());
+        ps.setString(2, user.getLogin());
+        ps.setString(3, user.getName());
+        ps.setDate(4, Date.valueOf(user.getBirthday()));
+    }
+
     @Override
     public User updateUser(User user) {
         String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?";
@@ -81,6 +128,18 @@ public class UserDbStorage implements UserStorage {
         }
     }
 
+    // Пользователи с указанными id одним запросом, по возрастанию id; отсутствующие пропускаются
+    @Override
+    public List<User> getUsersByIds(int[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT id, email, login, name, birthday FROM users WHERE id = ANY(?) ORDER BY id";
+        Integer[] boxedIds = Arrays.stream(ids).boxed().toArray(Integer[]::new);
+        return jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", boxedIds)), userRowMapper);
+    }
+
     @Override
     public void addFriend(int userId, int friendId) {
         String deleteSql = "DELETE FROM friendships WHERE user_id = ? AND friend_id = ?";
@@ -102,6 +161,37 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.queryForList(sql, Integer.class, userId);
     }
 
+    /**
+     * Друзья пользователя одним запросом, страницами по id друга. Строка самого пользователя
+     * присоединяется к друзьям через LEFT JOIN, поэтому пустой результат означает, что пользователя нет:
+     * тогда возвращается null, а у пользователя без друзей — пустой список.
+     */
+    @Override
+    public List<User> getFriendsPage(int userId, int afterId, int limit) {
+        String sql = """
+                SELECT u.id, u.email, u.login, u.name, u.birthday
+                FROM users o
+                LEFT JOIN (friendships fs INNER JOIN users u ON u.id = fs.friend_id)
+                    ON fs.user_id = o.id AND fs.status = 'CONFIRMED' AND fs.friend_id > ?
+                WHERE o.id = ?
+                ORDER BY u.id
+                LIMIT ?
+                """;
+        return jdbcTemplate.query(sql, rs -> {
+            if (!rs.next()) {
+                return null;
+            }
+            List<User> friends = new ArrayList<>();
+            do {
+                rs.getInt("id");
+                if (!rs.wasNull()) {
+                    friends.add(userRowMapper.mapRow(rs, friends.size()));
+                }
+            } while (rs.next());
+            return friends;
+        }, afterId, userId, limit);
+    }
+
     @Override
     public List<User> getCommonFriends(int userId1, int userId2) {
         String sql = """
@@ -113,4 +203,69 @@ public class UserDbStorage implements UserStorage {
                 """;
         return jdbcTemplate.query(sql, userRowMapper, userId1, userId2);
     }
-}
\ No newline at end of file
+
+    /**
+     * Рекомендации друзей: друзья друзей, ещё не ставшие друзьями, по убыванию числа общих друзей.
+     * Обход ограничен: у пользователя и у каждого его друга берутся не более fanOut друзей (по id),
+     * чтобы пользователи с огромным числом друзей не раздували выборку. Для каждого друга сначала
+     * находится id его fanOut-го друга (OFFSET по первичному ключу), и второй шаг читает диапазон
+     * ключа до этой границы, то есть не более fanOut строк на друга, а не весь его список.
+     */
+    @Override
+    public List<User> getFriendSuggestions(int userId, int fanOut, int limit) {
+        String sql = """
+                SELECT u.id, u.email, u.login, u.name, u.birthday, COUNT(*) AS mutual_friends
+                FROM (
+                    SELECT h.friend_id AS id,
+                           COALESCE((SELECT b.friend_id FROM friendships b
+                                     WHERE b.user_id = h.friend_id AND b.status = 'CONFIRMED'
+                                     ORDER BY b.friend_id
+                                     OFFSET ? ROWS FETCH NEXT 1 ROW ONLY), 2147483647) AS last_friend_id
+                    FROM (SELECT friend_id FROM friendships
+                          WHERE user_id = ? AND status = 'CONFIRMED'
+                          ORDER BY friend_id
+                          LIMIT ?) h
+                ) hop1
+                JOIN friendships hop2 ON hop2.user_id = hop1.id AND hop2.friend_id <= hop1.last_friend_id
+                JOIN users u ON u.id = hop2.friend_id
+                WHERE hop2.status = 'CONFIRMED' AND u.id <> ?
+                  AND NOT EXISTS (SELECT 1 FROM friendships x
+                                  WHERE x.user_id = ? AND x.friend_id = u.id AND x.status = 'CONFIRMED')
+                GROUP BY u.id, u.email, u.login, u.name, u.birthday
+                ORDER BY mutual_friends DESC, u.id
+                LIMIT ?
+                """;
+        return jdbcTemplate.query(sql, userRowMapper, fanOut - 1, userId, fanOut, userId, userId, limit);
+    }
+
+    /**
+     * Весь граф дружбы: для каждого пользователя — отсортированный массив id его друзей.
+     * Строки читаются в порядке (user_id, friend_id), поэтому массивы собираются за один проход.
+     */
+    @Override
+    public Map<Integer, int[]> getFriendIdsByUser() {
+        String sql = "SELECT user_id, friend_id FROM friendships WHERE status = 'CONFIRMED' ORDER BY user_id, friend_id";
+        return jdbcTemplate.query(sql, rs -> {
+            Map<Integer, int[]> friendIdsByUser = new HashMap<>();
+            int[] friends = new int[16];
+            int count = 0;
+            int currentUserId = 0;
+            while (rs.next()) {
+                int userId = rs.getInt("user_id");
+                if (count > 0 && userId != currentUserId) {
+                    friendIdsByUser.put(currentUserId, Arrays.copyOf(friends, count));
+                    count = 0;
+                }
+                currentUserId = userId;
+                if (count == friends.length) {
+                    friends = Arrays.copyOf(friends, count * 2);
+                }
+                friends[count++] = rs.getInt("friend_id");
+            }
+            if (count > 0) {
+                friendIdsByUser.put(currentUserId, Arrays.copyOf(friends, count));
+            }
+            return friendIdsByUser;
+        });
+    }
+}
@@ -3,21 +3,34 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.Map;
 
 public interface UserStorage {
     List<User> getAllUsers();
 
+    List<User> getUsersPage(int afterId, int limit);
+
     User createUser(User user);
 
+    List<User> createUsers(List<User> users);
+
     User updateUser(User user);
 
     User getUserById(int id);
 
+    List<User> getUsersByIds(int[] ids);
+
     void addFriend(int userId, int friendId);
 
     void removeFriend(int userId, int friendId);
 
     List<Integer> getUserFriends(int userId);
 
+    List<User> getFriendsPage(int userId, int afterId, int limit);
+
     List<User> getCommonFriends(int userId1, int userId2);
+
+    Map<Integer, int[]> getFriendIdsByUser();
+
+    List<User> getFriendSuggestions(int userId, int fanOut, int limit);
 }
@@ -0,0 +1,8 @@
+-- Индексы для обратных поисков: составной первичный ключ покрывает только поиск по первому столбцу.
+-- Столбцы с внешними ключами (likes.user_id, film_genres.genre_id, films.mpa_id) H2 индексирует сам
+
+-- Кто добавил пользователя в друзья (общие друзья, рекомендации друзей)
+CREATE INDEX IF NOT EXISTS idx_friendships_friend_id ON friendships (friend_id);
+
+-- Фильмы по дате выхода (популярные с фильтром по году)
+CREATE INDEX IF NOT EXISTS idx_films_release_date ON films (release_date);
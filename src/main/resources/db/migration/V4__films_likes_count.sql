@@ -0,0 +1,7 @@
+-- Материализованное число лайков фильма; поддерживается в одной транзакции с таблицей likes
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE films f SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id);
+
+-- Рейтинг популярности читается по индексу без сортировки всей таблицы
+CREATE INDEX IF NOT EXISTS idx_films_likes_count ON films (likes_count DESC, id);
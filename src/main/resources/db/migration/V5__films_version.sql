@@ -0,0 +1,2 @@
+-- Версия фильма для ETag: увеличивается при каждом изменении фильма, его жанров или числа лайков
+ALTER TABLE films ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
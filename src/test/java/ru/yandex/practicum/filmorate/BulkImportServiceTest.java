@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.BulkImportError;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MPADbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({BulkImportService.class, FilmService.class, FilmDbStorage.class, UserDbStorage.class, GenreDbStorage.class,
+        MPADbStorage.class, ReferenceDataCache.class, PopularityLeaderboard.class})
+@TestPropertySource(properties = "filmorate.bulk.batch-size=2")
+// Импорт открывает транзакцию на каждый пакет; внешняя тестовая транзакция скрыла бы откат пакета
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkImportServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM films");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void importFilms_shouldImportJsonArrayAndReportInvalidRecords() throws Exception {
+        String body = """
+                [
+                  {"name": "One", "releaseDate": "2000-01-01", "duration": 90, "mpa": {"id": 1},
+                   "genres": [{"id": 2}, {"id": 1}]},
+                  {"name": "", "releaseDate": "2000-01-01", "duration": 90, "mpa": {"id": 1}},
+                  {"name": "Two", "releaseDate": "2001-01-01", "duration": 100, "mpa": {"id": 2}},
+                  {"name": "Bad MPA", "releaseDate": "2001-01-01", "duration": 100, "mpa": {"id": 99}},
+                  {"name": "Too old", "releaseDate": "1800-01-01", "duration": 100, "mpa": {"id": 1}},
+                  {"name": "Three", "releaseDate": "2002-01-01", "duration": 110, "mpa": {"id": 3}}
+                ]
+                """;
+
+        BulkImportResult result = bulkImportService.importFilms(stream(body));
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(BulkImportError::getIndex).containsExactly(1, 3, 4);
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM films ORDER BY id", String.class))
+                .containsExactly("One", "Two", "Three");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_genres", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void importUsers_shouldImportNdjsonAndReportDuplicates() throws Exception {
+        String body = """
+                {"email": "a@filmorate.ru", "login": "a", "name": "A", "birthday": "1990-01-01"}
+                {"email": "b@filmorate.ru", "login": "b", "name": "B", "birthday": "1990-01-01"}
+                {"email": "c@filmorate.ru", "login": "a", "name": "C", "birthday": "1990-01-01"}
+                {"email": "not-an-email", "login": "d", "name": "D", "birthday": "1990-01-01"}
+                {"email": "e@filmorate.ru", "login": "e", "name": "E", "birthday": "1990-01-01"}
+                """;
+
+        BulkImportResult result = bulkImportService.importUsers(stream(body));
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(BulkImportError::getIndex).containsExactly(3, 2);
+        assertThat(jdbcTemplate.queryForList("SELECT login FROM users ORDER BY login", String.class))
+                .containsExactly("a", "b", "e");
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.ConcurrencyLimitingDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitingDataSourceTest {
+
+    private JdbcDataSource target;
+
+    @BeforeEach
+    void setUp() {
+        target = new JdbcDataSource();
+        target.setURL("jdbc:h2:mem:limiter;DB_CLOSE_DELAY=-1");
+    }
+
+    @Test
+    void getConnection_shouldTimeOutWhenAllPermitsAreTakenAndReleaseOnClose() throws Exception {
+        ConcurrencyLimitingDataSource limiter = new ConcurrencyLimitingDataSource(target, 2, 100);
+        Connection first = limiter.getConnection();
+        Connection second = limiter.getConnection();
+        assertThat(limiter.getActiveConnections()).isEqualTo(2);
+
+        assertThatThrownBy(limiter::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        first.close();
+        // Повторное закрытие не возвращает разрешение второй раз
+        first.close();
+        assertThat(limiter.getActiveConnections()).isEqualTo(1);
+        try (Connection third = limiter.getConnection()) {
+            assertThat(third.isValid(1)).isTrue();
+            assertThat(limiter.getActiveConnections()).isEqualTo(2);
+        }
+        second.close();
+        assertThat(limiter.getActiveConnections()).isZero();
+    }
+
+    @Test
+    void getConnection_shouldNeverExceedLimitUnderVirtualThreadStorm() throws Exception {
+        ConcurrencyLimitingDataSource limiter = new ConcurrencyLimitingDataSource(target, 4, 10000);
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 500; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = limiter.getConnection()) {
+                        maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                        connection.createStatement().execute("SELECT 1");
+                        Thread.sleep(1);
+                        open.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(maxOpen.get()).isEqualTo(4);
+        assertThat(limiter.getActiveConnections()).isZero();
+        assertThat(limiter.getWaitingThreads()).isZero();
+    }
+}
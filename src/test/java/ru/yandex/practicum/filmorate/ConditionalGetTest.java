@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "filmorate.http.cache-control.films=no-cache",
+        "filmorate.http.cache-control.genres=max-age=300",
+        "spring.datasource.url=jdbc:h2:mem:conditional-get;DB_CLOSE_DELAY=-1"})
+class ConditionalGetTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int filmId;
+    private int userId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM likes");
+        jdbcTemplate.update("DELETE FROM films");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                "Film", "Description", LocalDate.of(2000, 1, 1), 100, 1);
+        filmId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM films", Integer.class);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "user@filmorate.ru", "user", "User", LocalDate.of(1990, 1, 1));
+        userId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+    }
+
+    @Test
+    void getFilm_shouldReturnNotModifiedWithoutLoadingFilm() {
+        ResponseEntity<String> first = get("/films/" + filmId, null);
+        String eTag = first.getHeaders().getETag();
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(eTag).startsWith("\"");
+        assertThat(first.getHeaders().getCacheControl()).isEqualTo("no-cache");
+        assertThat(first.getBody()).doesNotContain("version");
+
+        double loads = storageCalls("getFilmById");
+        ResponseEntity<String> second = get("/films/" + filmId, eTag);
+
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getBody()).isNull();
+        assertThat(second.getHeaders().get(HttpHeaders.ETAG)).containsExactly(eTag);
+        assertThat(second.getHeaders().getCacheControl()).isEqualTo("no-cache");
+        assertThat(storageCalls("getFilmById")).isEqualTo(loads);
+        assertThat(storageCalls("getFilmVersion")).isPositive();
+    }
+
+    @Test
+    void getFilm_shouldChangeETagOnLikeAndUpdate() {
+        String initial = get("/films/" + filmId, null).getHeaders().getETag();
+
+        restTemplate.exchange("/films/{id}/like/{userId}", HttpMethod.PUT, null, Void.class, filmId, userId);
+        ResponseEntity<String> liked = get("/films/" + filmId, initial);
+        assertThat(liked.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(liked.getBody()).contains("\"likesCount\":1");
+        String afterLike = liked.getHeaders().getETag();
+        assertThat(afterLike).isNotEqualTo(initial);
+
+        Map<String, Object> film = Map.of("id", filmId, "name", "New name", "description", "Description",
+                "releaseDate", "2000-01-01", "duration", 100, "mpa", Map.of("id", 1));
+        assertThat(restTemplate.exchange("/films", HttpMethod.PUT, new HttpEntity<>(film), String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.OK);
+        ResponseEntity<String> updated = get("/films/" + filmId, afterLike);
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(updated.getHeaders().getETag()).isNotIn(initial, afterLike);
+    }
+
+    @Test
+    void getFilm_shouldReturnNotFoundForConditionalRequestOfMissingFilm() {
+        assertThat(get("/films/100000", "\"0-0\"").getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void getGenres_shouldUseReferenceDataVersion() {
+        ResponseEntity<String> genres = get("/genres", null);
+        String eTag = genres.getHeaders().getETag();
+        assertThat(genres.getHeaders().getCacheControl()).isEqualTo("max-age=300");
+
+        assertThat(get("/genres", eTag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(get("/genres/1", eTag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(get("/mpa", "\"other\"").getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(get("/mpa", "\"other\"").getHeaders().getETag()).isEqualTo(eTag);
+    }
+
+    @Test
+    void getGenreAndMpa_shouldReturnNotFoundForUnknownIdWithCurrentETag() {
+        String eTag = get("/genres/1", null).getHeaders().getETag();
+
+        assertThat(get("/genres/9999", eTag).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(get("/mpa/9999", eTag).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private ResponseEntity<String> get(String path, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private double storageCalls(String method) {
+        return meterRegistry.get("storage.method")
+                .tags("storage", "FilmDbStorage", "method", method, "exception", "none")
+                .timer().count();
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FilmCache;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MPADbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@Import({FilmService.class, FilmDbStorage.class, GenreDbStorage.class, MPADbStorage.class,
+        ReferenceDataCache.class, PopularityLeaderboard.class, FilmCache.class})
+@TestPropertySource(properties = "filmorate.films.cache.enabled=true")
+class FilmCacheTest extends FilmsAndUsersFixture {
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private FilmCache filmCache;
+
+    @Autowired
+    private PopularityLeaderboard leaderboard;
+
+    private int filmId;
+    private int userId;
+
+    @BeforeEach
+    void setUp() {
+        insertFilms(1);
+        insertUsers(1);
+        filmId = filmIds.get(0);
+        userId = userIds.get(0);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmId, 1);
+        leaderboard.rebuild();
+    }
+
+    @Test
+    void getFilmById_shouldServeSameImmutableFilmFromCache() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        filmCache.bindTo(registry);
+        // Статистика кэша общая для всех тестов контекста, поэтому сравниваются приращения
+        double hits = gets(registry, "hit");
+        double misses = gets(registry, "miss");
+
+        FilmView first = filmService.getFilmById(filmId);
+        // Массив жанров наружу отдаётся копией, поэтому запись в кэше изменить нельзя
+        first.genreIds()[0] = 2;
+        // Изменение в обход сервиса не видно, пока запись в кэше
+        jdbcTemplate.update("UPDATE films SET name = 'Changed in db' WHERE id = ?", filmId);
+
+        FilmView second = filmService.getFilmById(filmId);
+        assertThat(second).isSameAs(first);
+        assertThat(second.name()).isEqualTo("Film0");
+        assertThat(second.mpaId()).isEqualTo(1);
+        assertThat(second.genreIds()).containsExactly(1);
+
+        assertThat(gets(registry, "hit") - hits).isEqualTo(1);
+        assertThat(gets(registry, "miss") - misses).isEqualTo(1);
+    }
+
+    @Test
+    void updateFilm_shouldInvalidateCachedFilm() {
+        FilmView cached = filmService.getFilmById(filmId);
+        Film film = new Film();
+        film.setId(filmId);
+        film.setName("New name");
+        film.setReleaseDate(cached.releaseDate());
+        film.setDuration(cached.duration());
+        film.setMpa(new MPA(cached.mpaId(), null, null));
+        film.setGenres(List.of(new Genre(2, null)));
+
+        filmService.updateFilm(film);
+
+        FilmView updated = filmService.getFilmById(filmId);
+        assertThat(updated.name()).isEqualTo("New name");
+        assertThat(updated.genreIds()).containsExactly(2);
+        assertThat(updated.version()).isGreaterThan(cached.version());
+    }
+
+    @Test
+    void likes_shouldInvalidateCachedFilm() {
+        assertThat(filmService.getFilmById(filmId).likesCount()).isZero();
+
+        filmService.addLike(filmId, userId);
+        assertThat(filmService.getFilmById(filmId).likesCount()).isEqualTo(1);
+
+        filmService.removeLike(filmId, userId);
+        assertThat(filmService.getFilmById(filmId).likesCount()).isZero();
+    }
+
+    @Test
+    void getFilmById_shouldNotCacheMissingFilm() {
+        assertThatThrownBy(() -> filmService.getFilmById(filmId + 1)).isInstanceOf(NotFoundException.class);
+
+        jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                "Second", "Description", LocalDate.of(2001, 1, 1), 90, 2);
+        int secondId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM films", Integer.class);
+        assertThat(filmService.getFilmById(secondId).name()).isEqualTo("Second");
+    }
+
+    private static double gets(MeterRegistry registry, String result) {
+        return registry.get("cache.gets").tags("cache", "films", "result", result).functionCounter().count();
+    }
+}
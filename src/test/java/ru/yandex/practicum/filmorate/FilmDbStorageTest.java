@@ -1,23 +1,30 @@
 package ru.yandex.practicum.filmorate;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.storage.CountingJdbcTemplate;
 import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.SqlStatementCounter;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
 @Import(FilmDbStorage.class)
-@Sql(scripts = {"/schema.sql", "/data.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 class FilmDbStorageTest {
 
     @Autowired
@@ -44,6 +51,12 @@ class FilmDbStorageTest {
         System.out.println("Создан тестовый фильм с ID: " + testFilmId);
     }
 
+    // Счёт выражений открывают тесты, проверяющие число запросов; он привязан к потоку, поэтому закрывается здесь
+    @AfterEach
+    void stopStatementCount() {
+        SqlStatementCounter.stop();
+    }
+
     @Test
     void getFilmById_shouldReturnFilmWhenExists() {
         Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Integer.class);
@@ -52,10 +65,13 @@ class FilmDbStorageTest {
         Integer mpaCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM mpa_ratings", Integer.class);
         System.out.println("Количество MPA: " + mpaCount);
 
-        Film film = filmDbStorage.getFilmById(testFilmId);
+        FilmView film = filmDbStorage.getFilmById(testFilmId);
         assertThat(film).isNotNull();
-        assertThat(film.getId()).isEqualTo(testFilmId);
-        assertThat(film.getName()).isEqualTo("FilmOne");
+        assertThat(film.id()).isEqualTo(testFilmId);
+        assertThat(film.name()).isEqualTo("FilmOne");
+        assertThat(film.releaseDate()).isEqualTo(LocalDate.of(1995, 12, 28));
+        assertThat(film.mpaId()).isEqualTo(1);
+        assertThat(film.genreIds()).isEmpty();
     }
 
     @Test
@@ -67,7 +83,92 @@ class FilmDbStorageTest {
 
         var films = filmDbStorage.getAllFilms();
         assertThat(films).hasSize(2);
-        assertThat(films).extracting(Film::getName).containsExactlyInAnyOrder("FilmOne", "FilmTwo");
+        assertThat(films).extracting(FilmView::name).containsExactlyInAnyOrder("FilmOne", "FilmTwo");
+    }
+
+    @Test
+    void getFilmsPage_shouldReturnFilmsAfterCursor() {
+        int second = insertFilm("Second", LocalDate.of(2000, 1, 1), 1);
+        int third = insertFilm("Third", LocalDate.of(2000, 1, 1), 2);
+
+        assertThat(filmDbStorage.getFilmsPage(0, 2)).extracting(FilmView::id).containsExactly(testFilmId, second);
+        assertThat(filmDbStorage.getFilmsPage(second, 2)).extracting(FilmView::id).containsExactly(third);
+        assertThat(filmDbStorage.getFilmsPage(third, 2)).isEmpty();
+        assertThat(filmDbStorage.getFilmsPage(second, 2).get(0).genreIds()).containsExactly(2);
+    }
+
+    @Test
+    void exportFilms_shouldStreamFilmsWithGenresAndLikeCounts() {
+        int secondId = insertFilm("Second", LocalDate.of(2000, 1, 1), 3);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", secondId, 1);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "liker@filmorate.ru", "liker", "Liker", LocalDate.of(1990, 1, 1));
+        int userId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+        filmDbStorage.addLike(secondId, userId);
+
+        List<FilmView> films = new ArrayList<>();
+        filmDbStorage.exportFilms(1, films::add);
+
+        assertThat(films).extracting(FilmView::id).containsExactly(testFilmId, secondId);
+        assertThat(films).extracting(FilmView::likesCount).containsExactly(0, 1);
+        assertThat(films.get(0).genreIds()).isEmpty();
+        assertThat(films.get(1).genreIds()).containsExactly(1, 3);
+        assertThat(films.get(1).mpaId()).isEqualTo(1);
+    }
+
+    @Test
+    void addLike_shouldWriteLikeAndCounterInOneTransaction() {
+        FilmDbStorage countingStorage = new FilmDbStorage(new CountingJdbcTemplate(jdbcTemplate.getDataSource()));
+        SqlStatementCounter.start();
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "liker@filmorate.ru", "liker", "Liker", LocalDate.of(1990, 1, 1));
+        int userId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+
+        // Вставка лайка и увеличение films.likes_count
+        countingStorage.addLike(testFilmId, userId);
+        assertThat(SqlStatementCounter.current()).isEqualTo(2);
+        assertThat(filmDbStorage.getFilmById(testFilmId).likesCount()).isEqualTo(1);
+        assertThat(likesCount(testFilmId)).isEqualTo(1);
+
+        SqlStatementCounter.start();
+        assertThat(countingStorage.removeLike(testFilmId, userId)).isTrue();
+        assertThat(SqlStatementCounter.current()).isEqualTo(2);
+        assertThat(filmDbStorage.removeLike(testFilmId, userId)).isFalse();
+        assertThat(likesCount(testFilmId)).isZero();
+    }
+
+    @Test
+    void writeLikes_shouldRecountLikesOfAffectedFilms() {
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "liker@filmorate.ru", "liker", "Liker", LocalDate.of(1990, 1, 1));
+        int userId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+        int otherFilmId = insertFilm("Other", LocalDate.of(2001, 1, 1), 1);
+
+        filmDbStorage.writeLikes(List.of(new int[]{testFilmId, userId}, new int[]{otherFilmId, userId}), List.of());
+        assertThat(likesCount(testFilmId)).isEqualTo(1);
+        assertThat(likesCount(otherFilmId)).isEqualTo(1);
+
+        filmDbStorage.writeLikes(List.of(new int[]{testFilmId, userId}), List.of(new int[]{otherFilmId, userId}));
+        assertThat(likesCount(testFilmId)).isEqualTo(1);
+        assertThat(likesCount(otherFilmId)).isZero();
+        assertThat(filmDbStorage.getLikeCounts()).containsEntry(testFilmId, 1).containsEntry(otherFilmId, 0);
+    }
+
+    @Test
+    void addLike_shouldThrowNotFoundForUnknownFilmOrUser() {
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "liker@filmorate.ru", "liker", "Liker", LocalDate.of(1990, 1, 1));
+        int userId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+
+        assertThatThrownBy(() -> filmDbStorage.addLike(999, userId))
+                .isInstanceOf(NotFoundException.class).hasMessageContaining("Фильм");
+        assertThatThrownBy(() -> filmDbStorage.addLike(testFilmId, 999))
+                .isInstanceOf(NotFoundException.class).hasMessageContaining("Пользователь");
+        assertThatThrownBy(() -> filmDbStorage.removeLike(testFilmId, 999))
+                .isInstanceOf(NotFoundException.class).hasMessageContaining("Пользователь");
+        filmDbStorage.addLike(testFilmId, userId);
+        assertThatThrownBy(() -> filmDbStorage.addLike(testFilmId, userId))
+                .isInstanceOf(IllegalArgumentException.class);
     }
 
     @Test
@@ -86,9 +187,70 @@ class FilmDbStorageTest {
         Film created = filmDbStorage.createFilm(film);
         assertThat(created.getId()).isPositive();
 
-        Film fromDb = filmDbStorage.getFilmById(created.getId());
+        FilmView fromDb = filmDbStorage.getFilmById(created.getId());
         assertThat(fromDb).isNotNull();
-        assertThat(fromDb.getName()).isEqualTo("New Film");
+        assertThat(fromDb.name()).isEqualTo("New Film");
+    }
+
+    @Test
+    void createFilm_shouldStoreGenres() {
+        Film film = new Film();
+        film.setName("Genres");
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setDuration(90);
+        film.setMpa(new MPA(1, null, null));
+        film.setGenres(List.of(new Genre(2, null), new Genre(1, null)));
+
+        Film created = filmDbStorage.createFilm(film);
+
+        assertThat(filmDbStorage.getFilmById(created.getId()).genreIds()).containsExactly(1, 2);
+    }
+
+    @Test
+    void updateFilm_shouldReplaceGenresWithConstantNumberOfQueries() {
+        FilmDbStorage countingStorage = new FilmDbStorage(new CountingJdbcTemplate(jdbcTemplate.getDataSource()));
+        SqlStatementCounter.start();
+        Film film = new Film();
+        film.setName("Genres");
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setDuration(90);
+        film.setMpa(new MPA(1, null, null));
+        film.setGenres(List.of(new Genre(1, null)));
+
+        SqlStatementCounter.start();
+        Film created = countingStorage.createFilm(film);
+        int createQueriesForOneGenre = SqlStatementCounter.current();
+
+        film.setGenres(List.of(new Genre(2, null), new Genre(3, null), new Genre(4, null)));
+        SqlStatementCounter.start();
+        countingStorage.updateFilm(created);
+        int updateQueries = SqlStatementCounter.current();
+
+        assertThat(filmDbStorage.getFilmById(created.getId()).genreIds()).containsExactly(2, 3, 4);
+
+        film.setGenres(List.of(new Genre(1, null), new Genre(2, null), new Genre(3, null),
+                new Genre(4, null), new Genre(5, null)));
+        SqlStatementCounter.start();
+        countingStorage.createFilm(film);
+        assertThat(SqlStatementCounter.current()).isEqualTo(createQueriesForOneGenre);
+
+        film.setGenres(List.of(new Genre(6, null)));
+        SqlStatementCounter.start();
+        countingStorage.updateFilm(film);
+        assertThat(SqlStatementCounter.current()).isEqualTo(updateQueries);
+        assertThat(filmDbStorage.getFilmById(film.getId()).genreIds()).containsExactly(6);
+    }
+
+    @Test
+    void createFilm_shouldThrowNotFoundForUnknownGenre() {
+        Film film = new Film();
+        film.setName("Unknown genre");
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setDuration(90);
+        film.setMpa(new MPA(1, null, null));
+        film.setGenres(List.of(new Genre(999, null)));
+
+        assertThatThrownBy(() -> filmDbStorage.createFilm(film)).isInstanceOf(NotFoundException.class);
     }
 
     @Test
@@ -108,14 +270,91 @@ class FilmDbStorageTest {
         created.setName("Updated Film");
         filmDbStorage.updateFilm(created);
 
-        Film updated = filmDbStorage.getFilmById(created.getId());
+        FilmView updated = filmDbStorage.getFilmById(created.getId());
         assertThat(updated).isNotNull();
-        assertThat(updated.getName()).isEqualTo("Updated Film");
+        assertThat(updated.name()).isEqualTo("Updated Film");
+    }
+
+    @Test
+    void getAllFilms_shouldUseConstantNumberOfQueries() {
+        FilmDbStorage countingStorage = new FilmDbStorage(new CountingJdbcTemplate(jdbcTemplate.getDataSource()));
+        SqlStatementCounter.start();
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "liker@filmorate.ru", "liker", "Liker", LocalDate.of(1990, 1, 1));
+        int userId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", testFilmId, 1);
+        filmDbStorage.addLike(testFilmId, userId);
+
+        SqlStatementCounter.start();
+        assertThat(countingStorage.getAllFilms()).hasSize(1);
+        int queriesForOneFilm = SqlStatementCounter.current();
+        // Жанры читаются подзапросом в том же SELECT
+        assertThat(queriesForOneFilm).isEqualTo(1);
+
+        for (int i = 0; i < 20; i++) {
+            jdbcTemplate.update(
+                    "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                    "Film" + i, "Description", LocalDate.of(2000, 1, 1), 100, 1);
+            int filmId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM films", Integer.class);
+            jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmId, 2);
+            filmDbStorage.addLike(filmId, userId);
+        }
+
+        SqlStatementCounter.start();
+        var films = countingStorage.getAllFilms();
+        assertThat(films).hasSize(21);
+        assertThat(films).allSatisfy(film -> {
+            assertThat(film.likesCount()).isEqualTo(1);
+            assertThat(film.genreIds()).hasSize(1);
+        });
+        assertThat(SqlStatementCounter.current()).isEqualTo(queriesForOneFilm);
+
+        SqlStatementCounter.start();
+        countingStorage.getFilmById(testFilmId);
+        assertThat(SqlStatementCounter.current()).isEqualTo(queriesForOneFilm);
+    }
+
+    @Test
+    void getPopularFilms_shouldRankByLikesAndApplyFilters() {
+        int dramaId = insertFilm("Drama", LocalDate.of(2010, 5, 1), 2);
+        int comedyId = insertFilm("Comedy", LocalDate.of(2020, 5, 1), 1);
+        for (int i = 0; i < 2; i++) {
+            jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                    "u" + i + "@filmorate.ru", "u" + i, "User" + i, LocalDate.of(1990, 1, 1));
+            int userId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+            filmDbStorage.addLike(comedyId, userId);
+            if (i == 0) {
+                filmDbStorage.addLike(dramaId, userId);
+            }
+        }
+
+        assertThat(filmDbStorage.getPopularFilms(10, null, null)).extracting(FilmView::id)
+                .containsExactly(comedyId, dramaId, testFilmId);
+        assertThat(filmDbStorage.getPopularFilms(1, null, null)).extracting(FilmView::id)
+                .containsExactly(comedyId);
+        assertThat(filmDbStorage.getPopularFilms(10, 2, null)).extracting(FilmView::id)
+                .containsExactly(dramaId);
+        assertThat(filmDbStorage.getPopularFilms(10, null, 2020)).extracting(FilmView::id)
+                .containsExactly(comedyId);
+        assertThat(filmDbStorage.getPopularFilms(10, 1, 2010)).isEmpty();
     }
 
     @Test
     void getFilmById_shouldReturnNullWhenNotFound() {
-        Film film = filmDbStorage.getFilmById(999);
+        FilmView film = filmDbStorage.getFilmById(999);
         assertThat(film).isNull();
     }
-}
\ No newline at end of file
+
+    private int likesCount(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = ?", Integer.class, filmId);
+    }
+
+    private int insertFilm(String name, LocalDate releaseDate, int genreId) {
+        jdbcTemplate.update(
+                "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                name, "Description", releaseDate, 100, 1);
+        int filmId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM films", Integer.class);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmId, genreId);
+        return filmId;
+    }
+}
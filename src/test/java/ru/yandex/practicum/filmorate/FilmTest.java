@@ -1,12 +1,15 @@
 package ru.yandex.practicum.filmorate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -95,4 +98,21 @@ class FilmTest {
         assertEquals(1, violations.size());
         assertTrue(violations.iterator().next().getMessage().contains("положительным числом"));
     }
+
+    @Test
+    void testGenresAreDeduplicatedAndOrderedById() {
+        film.setGenres(List.of(new Genre(3, null), new Genre(1, null), new Genre(3, null)));
+
+        assertEquals(List.of(1, 3), film.getGenres().stream().map(Genre::getId).toList());
+    }
+
+    @Test
+    void testLikesCountIsSerializedButNotAccepted() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        film.setLikesCount(5);
+
+        assertEquals(5, objectMapper.readTree(objectMapper.writeValueAsString(film)).get("likesCount").asInt());
+        Film parsed = objectMapper.readValue("{\"name\":\"Film\",\"likesCount\":100}", Film.class);
+        assertEquals(0, parsed.getLikesCount());
+    }
 }
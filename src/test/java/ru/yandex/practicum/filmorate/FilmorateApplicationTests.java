@@ -1,13 +1,47 @@
 package ru.yandex.practicum.filmorate;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.yandex.practicum.filmorate.storage.H2CacheMetrics;
 
-@SpringBootTest
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// База в памяти: тесты не должны открывать и наполнять файловую базу разработчика ./db/filmorate
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:filmorate-application-tests;DB_CLOSE_DELAY=-1")
 class FilmorateApplicationTests {
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void poolAndCacheMetrics_shouldBeRegistered() {
+		assertThat(meterRegistry.find("hikaricp.connections.active").gauge()).isNotNull();
+		assertThat(meterRegistry.find("hikaricp.connections.acquire").timer()).isNotNull();
+		assertThat(meterRegistry.find("h2.cache.hit.ratio").gauge()).isNotNull();
+		assertThat(meterRegistry.find("h2.cache.max.size").gauge()).isNotNull();
+	}
+
+	@Test
+	void cacheMetrics_shouldReadPageCacheOfFileDatabase(@TempDir Path dir) {
+		// Статистику кэша страниц публикует только файловая база, поэтому для неё — отдельная во временном каталоге
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:" + dir.resolve("cache"), "sa", "");
+		MeterRegistry registry = new SimpleMeterRegistry();
+		new H2CacheMetrics(new JdbcTemplate(dataSource)).bindTo(registry);
+
+		assertThat(registry.get("h2.cache.hit.ratio").gauge().value()).isBetween(0.0, 1.0);
+		assertThat(registry.get("h2.cache.max.size").gauge().value()).isPositive();
+	}
+
 }
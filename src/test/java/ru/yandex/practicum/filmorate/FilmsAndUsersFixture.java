@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Общие данные тестов лайков: фильмы и пользователи, созданные прямо в базе. Лайки, фильмы и пользователи
+ * удаляются до и после каждого теста, поэтому тест с фоновыми потоками может работать без общей транзакции
+ * (@Transactional(propagation = NOT_SUPPORTED) на самом тесте — @JdbcTest объявляет свою транзакцию).
+ */
+abstract class FilmsAndUsersFixture {
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    protected final List<Integer> filmIds = new ArrayList<>();
+    protected final List<Integer> userIds = new ArrayList<>();
+
+    // Фильм i выходит в 2000 + i году, чтобы рейтинг можно было фильтровать по году
+    protected void insertFilms(int count) {
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.update(
+                    "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                    "Film" + i, "Description", LocalDate.of(2000 + i, 1, 1), 100, 1);
+            filmIds.add(jdbcTemplate.queryForObject("SELECT MAX(id) FROM films", Integer.class));
+        }
+    }
+
+    protected void insertUsers(int count) {
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                    "u" + i + "@filmorate.ru", "u" + i, "User" + i, LocalDate.of(1990, 1, 1));
+            userIds.add(jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class));
+        }
+    }
+
+    @BeforeEach
+    void deleteLeftovers() {
+        deleteFilmsAndUsers();
+    }
+
+    @AfterEach
+    void deleteFilmsAndUsers() {
+        jdbcTemplate.update("DELETE FROM likes");
+        jdbcTemplate.update("DELETE FROM films");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+}
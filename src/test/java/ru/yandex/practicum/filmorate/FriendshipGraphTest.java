@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@Import({UserService.class, UserDbStorage.class, FriendshipGraph.class})
+@TestPropertySource(properties = "filmorate.friends.graph.enabled=true")
+// Граф обновляется после фиксации транзакции, поэтому изменения теста должны фиксироваться сразу
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FriendshipGraphTest {
+
+    private static final int USERS = 40;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserDbStorage userDbStorage;
+
+    @Autowired
+    private FriendshipGraph friendshipGraph;
+
+    private final List<Integer> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        for (int i = 0; i < USERS; i++) {
+            User user = userDbStorage.createUser(User.builder()
+                    .email("u" + i + "@f.ru").login("u" + i).birthday(LocalDate.of(1990, 1, 1)).build());
+            userIds.add(user.getId());
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM friendships");
+        jdbcTemplate.update("DELETE FROM users");
+        friendshipGraph.rebuild();
+    }
+
+    @Test
+    void getCommonFriends_shouldMatchSqlAfterRandomUpdates() {
+        Random random = new Random(7);
+        for (int i = 0; i < 600; i++) {
+            int userId = userIds.get(random.nextInt(USERS));
+            int friendId = userIds.get(random.nextInt(USERS));
+            if (userId == friendId) {
+                continue;
+            }
+            if (random.nextInt(4) == 0) {
+                userService.removeFriend(userId, friendId);
+            } else {
+                userService.addFriend(userId, friendId);
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            int userId = userIds.get(random.nextInt(USERS));
+            int otherId = userIds.get(random.nextInt(USERS));
+            List<Integer> expected = userDbStorage.getCommonFriends(userId, otherId).stream()
+                    .map(User::getId)
+                    .sorted(Comparator.naturalOrder())
+                    .toList();
+            assertThat(userService.getCommonFriends(userId, otherId)).extracting(User::getId)
+                    .containsExactlyElementsOf(expected);
+        }
+
+        int edges = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friendships", Integer.class);
+        assertThat(friendshipGraph.getEdgeCount()).isEqualTo(edges);
+        friendshipGraph.rebuild();
+        assertThat(friendshipGraph.getEdgeCount()).isEqualTo(edges);
+        assertThat(friendshipGraph.estimateMemoryBytes()).isGreaterThanOrEqualTo(4L * edges);
+    }
+
+    @Test
+    void getCommonFriends_shouldIntersectSmallAndLargeFriendLists() {
+        int hub = userIds.get(0);
+        int other = userIds.get(1);
+        for (int i = 2; i < USERS; i++) {
+            userService.addFriend(hub, userIds.get(i));
+        }
+        userService.addFriend(other, userIds.get(5));
+        userService.addFriend(other, userIds.get(USERS - 1));
+
+        assertThat(friendshipGraph.getCommonFriendIds(hub, other))
+                .containsExactly(userIds.get(5), userIds.get(USERS - 1));
+        assertThat(friendshipGraph.getCommonFriendIds(other, hub))
+                .containsExactly(userIds.get(5), userIds.get(USERS - 1));
+    }
+
+    @Test
+    void suggestFriends_shouldMatchSqlTraversalWithFanOutCap() {
+        Random random = new Random(11);
+        for (int i = 0; i < 400; i++) {
+            // Степенное распределение: пользователи с малыми индексами получают непропорционально много друзей
+            int userId = userIds.get((int) (USERS * Math.pow(random.nextDouble(), 3)));
+            int friendId = userIds.get(random.nextInt(USERS));
+            if (userId != friendId) {
+                userService.addFriend(userId, friendId);
+            }
+        }
+
+        for (int fanOut : new int[]{3, USERS}) {
+            for (int userId : userIds) {
+                int[] expected = userDbStorage.getFriendSuggestions(userId, fanOut, 5).stream()
+                        .mapToInt(User::getId)
+                        .toArray();
+                assertThat(friendshipGraph.suggestFriends(userId, fanOut, 5)).containsExactly(expected);
+            }
+        }
+        int userId = userIds.get(0);
+        assertThat(userService.getSuggestions(userId, 5)).extracting(User::getId)
+                .doesNotContain(userId)
+                .doesNotContainAnyElementsOf(userService.getFriendsIds(userId));
+    }
+
+    @Test
+    void getCommonFriends_shouldThrowNotFoundForUnknownUser() {
+        assertThatThrownBy(() -> userService.getCommonFriends(userIds.get(0), 999))
+                .isInstanceOf(NotFoundException.class);
+    }
+}
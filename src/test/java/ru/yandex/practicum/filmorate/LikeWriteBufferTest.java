@@ -0,0 +1,208 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FilmCache;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.storage.MPADbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@Import({FilmService.class, FilmDbStorage.class, GenreDbStorage.class, MPADbStorage.class,
+        ReferenceDataCache.class, PopularityLeaderboard.class, LikeWriteBuffer.class, FilmCache.class})
+@TestPropertySource(properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.films.cache.enabled=true",
+        "filmorate.likes.write-behind.capacity=3",
+        "filmorate.likes.write-behind.batch-size=100",
+        "filmorate.likes.write-behind.flush-interval-ms=60000"})
+// Буфер пишет пакеты из своего потока, поэтому данные теста должны фиксироваться сразу
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LikeWriteBufferTest extends FilmsAndUsersFixture {
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @Autowired
+    private PopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        insertFilms(2);
+        insertUsers(5);
+        leaderboard.rebuild();
+    }
+
+    // Отложенные лайки записываются до того, как общая очистка удалит фильмы и пользователей
+    @AfterEach
+    void flushBuffer() {
+        likeWriteBuffer.flush();
+    }
+
+    @Test
+    void addLike_shouldBufferLikeUntilFlush() {
+        filmService.addLike(filmIds.get(0), userIds.get(0));
+
+        assertThat(likesInDb()).isZero();
+        assertThat(filmService.getPopularFilms(1, null, null)).extracting(FilmView::id).containsExactly(filmIds.get(0));
+        assertThatThrownBy(() -> filmService.addLike(filmIds.get(0), userIds.get(0)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        likeWriteBuffer.flush();
+        assertThat(likesInDb()).isEqualTo(1);
+        assertThat(likeWriteBuffer.size()).isZero();
+    }
+
+    @Test
+    void removeLike_shouldCoalesceWithPendingLike() {
+        filmService.addLike(filmIds.get(0), userIds.get(0));
+        filmService.removeLike(filmIds.get(0), userIds.get(0));
+
+        assertThat(likeWriteBuffer.size()).isZero();
+        assertThat(leaderboard.getLikes(filmIds.get(0))).isZero();
+
+        jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", filmIds.get(1), userIds.get(1));
+        filmService.removeLike(filmIds.get(1), userIds.get(1));
+        filmService.addLike(filmIds.get(1), userIds.get(1));
+        assertThat(likeWriteBuffer.size()).isZero();
+        assertThat(likesInDb()).isEqualTo(1);
+    }
+
+    @Test
+    void addLike_shouldThrowNotFoundForUnknownFilmOrUser() {
+        assertThatThrownBy(() -> filmService.addLike(999, userIds.get(0))).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> filmService.removeLike(filmIds.get(0), 999)).isInstanceOf(NotFoundException.class);
+        assertThat(likeWriteBuffer.size()).isZero();
+    }
+
+    @Test
+    void getPopularFilms_withFilter_shouldSeeBufferedLikes() {
+        filmService.addLike(filmIds.get(1), userIds.get(0));
+        filmService.addLike(filmIds.get(1), userIds.get(1));
+
+        assertThat(filmService.getPopularFilms(2, null, 2001)).extracting(FilmView::id)
+                .containsExactly(filmIds.get(1));
+        assertThat(likesInDb()).isEqualTo(2);
+    }
+
+    @Test
+    void getPopularFilmsAndFilmById_shouldCountBufferedLikes() {
+        filmService.addLike(filmIds.get(1), userIds.get(0));
+        filmService.addLike(filmIds.get(1), userIds.get(1));
+
+        assertThat(filmService.getPopularFilms(1, null, null)).singleElement()
+                .satisfies(film -> {
+                    assertThat(film.id()).isEqualTo(filmIds.get(1));
+                    assertThat(film.likesCount()).isEqualTo(2);
+                });
+
+        filmService.addLike(filmIds.get(1), userIds.get(2));
+        assertThat(filmService.getFilmById(filmIds.get(1)).likesCount()).isEqualTo(3);
+
+        // Чтение фильма без отложенных лайков буфер не сбрасывает
+        filmService.addLike(filmIds.get(0), userIds.get(0));
+        filmService.getFilmById(filmIds.get(1));
+        assertThat(likeWriteBuffer.size()).isEqualTo(1);
+    }
+
+    @Test
+    void addLike_shouldWaitForFlushWhenBufferIsFull() throws Exception {
+        for (int userId : userIds) {
+            filmService.addLike(filmIds.get(0), userId);
+        }
+
+        // Переполнение буфера запускает сброс; запись в базу идёт асинхронно, поэтому проверяем после остановки.
+        // size() учитывает и пакет, который сейчас пишется, поэтому предел — два буфера
+        assertThat(likeWriteBuffer.size()).isLessThanOrEqualTo(2 * 3);
+        likeWriteBuffer.stop();
+        assertThat(likesInDb()).isEqualTo(userIds.size());
+        likeWriteBuffer.start();
+    }
+
+    @Test
+    void flush_shouldInvalidateCachedFilms() {
+        assertThat(filmService.getFilmById(filmIds.get(0)).likesCount()).isZero();
+        filmService.addLike(filmIds.get(0), userIds.get(0));
+        filmService.addLike(filmIds.get(0), userIds.get(1));
+
+        likeWriteBuffer.flush();
+
+        assertThat(filmService.getFilmById(filmIds.get(0)).likesCount()).isEqualTo(2);
+    }
+
+    @Test
+    void addLike_shouldNotHoldBufferWhileReadingLikeFromDb() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        FilmDbStorage slowStorage = new FilmDbStorage(jdbcTemplate) {
+            @Override
+            public boolean hasLike(int filmId, int userId) {
+                if (first.compareAndSet(true, false)) {
+                    reading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.hasLike(filmId, userId);
+            }
+        };
+        LikeWriteBuffer buffer = new LikeWriteBuffer(slowStorage, Optional.empty(), 100, 100, 60000);
+        buffer.start();
+        try {
+            CompletableFuture<Void> slowLike = CompletableFuture.runAsync(
+                    () -> buffer.addLike(filmIds.get(0), userIds.get(0)));
+            assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Пока первый поток читает базу, другие лайки, включая ту же пару, проходят без ожидания
+            CompletableFuture.runAsync(() -> {
+                buffer.addLike(filmIds.get(1), userIds.get(0));
+                buffer.addLike(filmIds.get(0), userIds.get(0));
+            }).get(5, TimeUnit.SECONDS);
+            assertThat(buffer.size()).isEqualTo(2);
+
+            // Прочитанное состояние устарело: пара уже в буфере, поэтому повторный лайк отклоняется
+            release.countDown();
+            assertThatThrownBy(() -> slowLike.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalArgumentException.class);
+            buffer.flush();
+            assertThat(likesInDb()).isEqualTo(2);
+        } finally {
+            release.countDown();
+            buffer.stop();
+        }
+    }
+
+    private int likesInDb() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes", Integer.class);
+    }
+}
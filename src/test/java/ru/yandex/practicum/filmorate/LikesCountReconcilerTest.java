@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikesCountReconciler;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MPADbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import({FilmService.class, FilmDbStorage.class, GenreDbStorage.class, MPADbStorage.class,
+        ReferenceDataCache.class, PopularityLeaderboard.class, LikesCountReconciler.class})
+@TestPropertySource(properties = {
+        "filmorate.likes.reconcile.enabled=true",
+        "filmorate.likes.reconcile.interval-ms=3600000"})
+// Шторм лайков идёт из пула потоков, каждый в своём соединении, поэтому данные фиксируются сразу
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LikesCountReconcilerTest extends FilmsAndUsersFixture {
+
+    private static final int FILMS = 4;
+    private static final int USERS = 30;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Autowired
+    private PopularityLeaderboard leaderboard;
+
+    @Autowired
+    private LikesCountReconciler reconciler;
+
+    @Autowired
+    private FilmService filmService;
+
+    @BeforeEach
+    void setUp() {
+        insertFilms(FILMS);
+        insertUsers(USERS);
+        leaderboard.rebuild();
+    }
+
+    @Test
+    void likesCount_shouldMatchLikesTableAfterConcurrentLikeStorm() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 400; i++) {
+                    // Немного фильмов и пользователей — много конфликтов на одних и тех же строках
+                    int filmId = filmIds.get(random.nextInt(FILMS));
+                    int userId = userIds.get(random.nextInt(USERS));
+                    try {
+                        if (random.nextBoolean()) {
+                            filmDbStorage.addLike(filmId, userId);
+                        } else {
+                            filmDbStorage.removeLike(filmId, userId);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // Повторный лайк того же пользователя — ожидаемо при случайной нагрузке
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (int filmId : filmIds) {
+            assertThat(likesCount(filmId)).isEqualTo(likesInTable(filmId));
+        }
+        assertThat(reconciler.reconcile()).isZero();
+    }
+
+    @Test
+    void reconcile_shouldRepairDriftInDatabaseAndLeaderboard() {
+        filmDbStorage.addLike(filmIds.get(0), userIds.get(0));
+        filmDbStorage.addLike(filmIds.get(1), userIds.get(0));
+        filmDbStorage.addLike(filmIds.get(1), userIds.get(1));
+        leaderboard.rebuild();
+        // Ручная правка в обход приложения: у первого фильма испорчен только столбец, рейтинг верен;
+        // у второго удалён лайк, и столбец вместе с рейтингом отстают от таблицы likes
+        jdbcTemplate.update("UPDATE films SET likes_count = 7 WHERE id = ?", filmIds.get(0));
+        jdbcTemplate.update("DELETE FROM likes WHERE film_id = ? AND user_id = ?", filmIds.get(1), userIds.get(1));
+
+        assertThat(reconciler.reconcile()).isEqualTo(2);
+
+        assertThat(likesCount(filmIds.get(0))).isEqualTo(1);
+        assertThat(likesCount(filmIds.get(1))).isEqualTo(1);
+        assertThat(leaderboard.getLikes(filmIds.get(0))).isEqualTo(1);
+        assertThat(leaderboard.getLikes(filmIds.get(1))).isEqualTo(1);
+        assertThat(leaderboard.getTopFilmIds(2)).containsExactly(filmIds.get(0), filmIds.get(1));
+        assertThat(reconciler.reconcile()).isZero();
+    }
+
+    @Test
+    void reconcile_shouldKeepLikeMadeWhileRepairing() {
+        filmDbStorage.addLike(filmIds.get(0), userIds.get(0));
+        leaderboard.rebuild();
+        jdbcTemplate.update("UPDATE films SET likes_count = 7 WHERE id = ?", filmIds.get(0));
+        // Лайк проходит сразу после исправления базы, пока сверка ещё не вернулась
+        FilmDbStorage racingStorage = new FilmDbStorage(jdbcTemplate) {
+            @Override
+            public Map<Integer, Integer> reconcileLikeCounts(BiConsumer<Integer, Integer> onRepaired) {
+                Map<Integer, Integer> repaired = super.reconcileLikeCounts(onRepaired);
+                filmService.addLike(filmIds.get(0), userIds.get(1));
+                return repaired;
+            }
+        };
+        LikesCountReconciler racingReconciler = new LikesCountReconciler(racingStorage, filmService,
+                Optional.of(leaderboard), Optional.empty(), 3600000);
+
+        assertThat(racingReconciler.reconcile()).isEqualTo(1);
+
+        assertThat(likesCount(filmIds.get(0))).isEqualTo(2);
+        assertThat(leaderboard.getLikes(filmIds.get(0))).isEqualTo(2);
+        assertThat(reconciler.reconcile()).isZero();
+    }
+
+    private int likesCount(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = ?", Integer.class, filmId);
+    }
+
+    private int likesInTable(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id = ?", Integer.class, filmId);
+    }
+}
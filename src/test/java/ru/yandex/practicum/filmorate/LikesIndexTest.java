@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.LikesIndex;
+import ru.yandex.practicum.filmorate.storage.MPADbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import({FilmService.class, FilmDbStorage.class, GenreDbStorage.class, MPADbStorage.class,
+        ReferenceDataCache.class, PopularityLeaderboard.class, LikesIndex.class})
+@TestPropertySource(properties = "filmorate.recommendations.index.enabled=true")
+class LikesIndexTest extends FilmsAndUsersFixture {
+
+    private static final int FILMS = 30;
+    private static final int USERS = 30;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Autowired
+    private LikesIndex likesIndex;
+
+    @BeforeEach
+    void setUp() {
+        insertFilms(FILMS);
+        insertUsers(USERS);
+        likesIndex.rebuild();
+    }
+
+    @Test
+    void recommendFilms_shouldMatchSqlAfterIncrementalUpdates() {
+        Random random = new Random(3);
+        for (int i = 0; i < 500; i++) {
+            int filmId = filmIds.get((int) (FILMS * Math.pow(random.nextDouble(), 2)));
+            int userId = userIds.get(random.nextInt(USERS));
+            try {
+                if (random.nextInt(4) == 0) {
+                    filmService.removeLike(filmId, userId);
+                } else {
+                    filmService.addLike(filmId, userId);
+                }
+            } catch (IllegalArgumentException e) {
+                // Повторный лайк — ожидаемо при случайной нагрузке
+            }
+        }
+
+        for (int userId : userIds) {
+            int[] expected = filmDbStorage.getRecommendedFilmIds(userId, 3, 5).stream()
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            assertThat(likesIndex.recommendFilms(userId, 3, 5)).containsExactly(expected);
+        }
+
+        int userId = userIds.get(0);
+        int[] incremental = likesIndex.recommendFilms(userId, 3, 5);
+        likesIndex.rebuild();
+        assertThat(likesIndex.recommendFilms(userId, 3, 5)).containsExactly(incremental);
+        assertThat(likesIndex.estimateMemoryBytes()).isPositive();
+    }
+
+    @Test
+    void getRecommendations_shouldSuggestFilmsOfMostSimilarUser() {
+        int target = userIds.get(0);
+        int similar = userIds.get(1);
+        int other = userIds.get(2);
+        filmService.addLike(filmIds.get(0), target);
+        filmService.addLike(filmIds.get(1), target);
+        filmService.addLike(filmIds.get(0), similar);
+        filmService.addLike(filmIds.get(1), similar);
+        filmService.addLike(filmIds.get(2), similar);
+        filmService.addLike(filmIds.get(0), other);
+        filmService.addLike(filmIds.get(3), other);
+
+        assertThat(filmService.getRecommendations(target, 10)).extracting(FilmView::id)
+                .containsExactly(filmIds.get(2), filmIds.get(3));
+        assertThat(filmService.getRecommendations(userIds.get(5), 10)).isEmpty();
+    }
+
+    @Test
+    void recommendFilms_shouldSamplePostingListThatExceedsBudget() {
+        int target = userIds.get(0);
+        filmService.addLike(filmIds.get(0), target);
+        for (int i = 1; i <= 10; i++) {
+            filmService.addLike(filmIds.get(0), userIds.get(i));
+            filmService.addLike(filmIds.get(1), userIds.get(i));
+        }
+
+        // Единственный список длиннее бюджета: берётся каждый третий лайкнувший, а не ни одного
+        LikesIndex smallBudget = new LikesIndex(filmDbStorage, 4);
+        smallBudget.rebuild();
+        assertThat(smallBudget.recommendFilms(target, 3, 5)).containsExactly(filmIds.get(1));
+    }
+}
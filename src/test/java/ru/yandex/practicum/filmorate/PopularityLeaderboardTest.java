@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MPADbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import({FilmService.class, FilmDbStorage.class, UserDbStorage.class, GenreDbStorage.class, MPADbStorage.class,
+        ReferenceDataCache.class, PopularityLeaderboard.class})
+// Потоки нагрузки работают каждый в своём соединении, поэтому данные должны фиксироваться сразу
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PopularityLeaderboardTest extends FilmsAndUsersFixture {
+
+    private static final int FILMS = 6;
+    private static final int USERS = 25;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Autowired
+    private PopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        insertFilms(FILMS);
+        insertUsers(USERS);
+        leaderboard.rebuild();
+    }
+
+    @Test
+    void rebuild_shouldRestoreRankingFromLikesTable() {
+        filmDbStorage.addLike(filmIds.get(2), userIds.get(0));
+        filmDbStorage.addLike(filmIds.get(2), userIds.get(1));
+        filmDbStorage.addLike(filmIds.get(4), userIds.get(0));
+
+        leaderboard.rebuild();
+
+        assertThat(leaderboard.getTopFilmIds(3)).containsExactly(filmIds.get(2), filmIds.get(4), filmIds.get(0));
+        assertThat(leaderboard.getLikes(filmIds.get(2))).isEqualTo(2);
+    }
+
+    @Test
+    void decrementBeforeIncrement_shouldMatchLikesCount() {
+        // Лайк и его отмена зафиксированы в базе, но рейтинг получил обновления в обратном порядке
+        filmDbStorage.addLike(filmIds.get(1), userIds.get(0));
+        filmDbStorage.removeLike(filmIds.get(1), userIds.get(0));
+        leaderboard.decrement(filmIds.get(1));
+        leaderboard.increment(filmIds.get(1));
+
+        Integer likesCount = jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = ?",
+                Integer.class, filmIds.get(1));
+        assertThat(leaderboard.getLikes(filmIds.get(1))).isZero().isEqualTo(likesCount);
+        assertThat(leaderboard.getTopFilmIds(FILMS)).isEqualTo(filmIds);
+    }
+
+    @Test
+    void leaderboard_shouldMatchSqlRankingAfterConcurrentLikeStorm() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 300; i++) {
+                    int filmId = filmIds.get(random.nextInt(FILMS));
+                    int userId = userIds.get(random.nextInt(USERS));
+                    try {
+                        if (random.nextInt(3) < 2) {
+                            filmService.addLike(filmId, userId);
+                        } else {
+                            filmService.removeLike(filmId, userId);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // Повторный лайк того же пользователя — ожидаемо при случайной нагрузке
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Integer> sqlRanking = filmDbStorage.getPopularFilms(FILMS, null, null).stream()
+                .map(FilmView::id)
+                .toList();
+        assertThat(leaderboard.getTopFilmIds(FILMS)).isEqualTo(sqlRanking);
+        for (int filmId : filmIds) {
+            Integer likes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id = ?",
+                    Integer.class, filmId);
+            assertThat(leaderboard.getLikes(filmId)).isEqualTo(likes);
+        }
+        assertThat(filmService.getPopularFilms(3, null, null)).extracting(FilmView::id)
+                .isEqualTo(sqlRanking.subList(0, 3));
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "filmorate.h2.tcp-server.enabled=true",
+        "filmorate.h2.tcp-server.port=19092",
+        "filmorate.h2.tcp-server.allow-others=false",
+        "filmorate.h2.tcp-server.base-dir=" + ProdProfileTest.BASE_DIR,
+        "FILMORATE_DB_PASSWORD=" + ProdProfileTest.PASSWORD,
+        "spring.datasource.url=jdbc:h2:tcp://localhost:19092/filmorate;CACHE_SIZE=131072;QUERY_CACHE_SIZE=64"})
+@ActiveProfiles("prod")
+class ProdProfileTest {
+
+    static final String BASE_DIR = "./target/h2-prod-profile";
+    static final String PASSWORD = "prod-profile-test";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Test
+    void prodProfile_shouldConnectThroughTcpServerWithTunedSettings() {
+        HikariDataSource hikari = (HikariDataSource) dataSource;
+        assertThat(hikari.getJdbcUrl()).startsWith("jdbc:h2:tcp://");
+        assertThat(hikari.getMaximumPoolSize()).isEqualTo(16);
+        assertThat(hikari.getConnectionTimeout()).isEqualTo(2000);
+
+        assertThat(setting("QUERY_CACHE_SIZE")).isEqualTo("64");
+        assertThat(setting("CACHE_SIZE")).isEqualTo("131072");
+        // Схема создана миграциями через TCP-соединение
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM mpa_ratings", Integer.class)).isPositive();
+    }
+
+    @Test
+    void prodProfile_shouldRankPopularFilmsInDatabase() {
+        // Рейтинг в памяти не видит лайков других экземпляров, поэтому в prod он выключен
+        assertThat(context.getBeanNamesForType(PopularityLeaderboard.class)).isEmpty();
+        Integer films = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Integer.class);
+        assertThat(filmService.getPopularFilms(10, null, null)).hasSize(Math.min(films, 10));
+    }
+
+    @Test
+    void tcpServer_shouldNotCreateDatabasesForClients() {
+        // База приложения создана при старте сервера, а новые базы по TCP не создаются
+        assertThat(Path.of(BASE_DIR, "filmorate.mv.db")).exists();
+        assertThatThrownBy(() -> DriverManager.getConnection("jdbc:h2:tcp://localhost:19092/other", "sa", PASSWORD))
+                .isInstanceOf(SQLException.class);
+        assertThat(Path.of(BASE_DIR, "other.mv.db")).doesNotExist();
+    }
+
+    @Test
+    void prodProfile_shouldNotStartWithoutDatabasePassword() {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(FilmorateApplication.class)
+                .profiles("prod")
+                .web(WebApplicationType.NONE);
+        assertThatThrownBy(application::run).hasStackTraceContaining("FILMORATE_DB_PASSWORD");
+    }
+
+    private String setting(String name) {
+        return jdbcTemplate.queryForObject(
+                "SELECT SETTING_VALUE FROM INFORMATION_SCHEMA.SETTINGS WHERE SETTING_NAME = ?", String.class, name);
+    }
+}
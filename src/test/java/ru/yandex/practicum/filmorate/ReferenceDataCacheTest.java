@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MPADbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@Import({GenreDbStorage.class, MPADbStorage.class, ReferenceDataCache.class})
+class ReferenceDataCacheTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Test
+    void shouldServeSeededReferenceData() {
+        referenceDataCache.refresh();
+
+        assertThat(referenceDataCache.getAllGenres()).extracting(Genre::getId).containsExactly(1, 2, 3, 4, 5, 6);
+        assertThat(referenceDataCache.getGenreById(2).getName()).isEqualTo("Драма");
+        assertThat(referenceDataCache.getAllMPA()).hasSize(5);
+        assertThat(referenceDataCache.getMPAById(3).getName()).isEqualTo("PG-13");
+    }
+
+    @Test
+    void shouldThrowNotFoundForUnknownIds() {
+        assertThatThrownBy(() -> referenceDataCache.getGenreById(999)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> referenceDataCache.getMPAById(999)).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void refresh_shouldPickUpChangedRows() {
+        jdbcTemplate.update("INSERT INTO genres (id, name) VALUES (?, ?)", 7, "Фантастика");
+        assertThatThrownBy(() -> referenceDataCache.getGenreById(7)).isInstanceOf(NotFoundException.class);
+
+        referenceDataCache.refresh();
+
+        assertThat(referenceDataCache.getGenreById(7).getName()).isEqualTo("Фантастика");
+    }
+}
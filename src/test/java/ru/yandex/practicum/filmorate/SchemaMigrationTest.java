@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+class SchemaMigrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrations_shouldBeAppliedInOrder() {
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" ORDER BY \"installed_rank\"",
+                String.class))
+                .containsSubsequence("1", "2", "3", "4", "5");
+    }
+
+    @Test
+    void reverseLookups_shouldUseIndexes() {
+        assertThat(explain("SELECT user_id FROM friendships WHERE friend_id = 1"))
+                .contains("IDX_FRIENDSHIPS_FRIEND_ID");
+        assertThat(explain("SELECT film_id FROM likes WHERE user_id = 1")).doesNotContain("tableScan");
+        assertThat(explain("SELECT film_id FROM film_genres WHERE genre_id = 1")).doesNotContain("tableScan");
+        assertThat(explain("SELECT id FROM films WHERE mpa_id = 1")).doesNotContain("tableScan");
+        assertThat(explain("SELECT id FROM films WHERE release_date >= DATE '2000-01-01' "
+                + "AND release_date < DATE '2001-01-01'"))
+                .contains("IDX_FILMS_RELEASE_DATE");
+    }
+
+    @Test
+    void popularFilms_shouldBeReadInIndexOrder() {
+        assertThat(explain("SELECT id FROM films ORDER BY likes_count DESC, id LIMIT 10"))
+                .contains("IDX_FILMS_LIKES_COUNT")
+                .contains("index sorted");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.controller.SqlStatementCountFilter;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "filmorate.debug.sql-statements-header=true",
+        "spring.datasource.url=jdbc:h2:mem:storage-metrics;DB_CLOSE_DELAY=-1"})
+@AutoConfigureObservability(tracing = false)
+class StorageMetricsTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void getFilms_shouldExposeStatementCountAndStorageMetrics() {
+        insertFilm("First");
+        ResponseEntity<String> oneFilm = restTemplate.getForEntity("/films", String.class);
+        for (int i = 0; i < 5; i++) {
+            insertFilm("Film" + i);
+        }
+        ResponseEntity<String> sixFilms = restTemplate.getForEntity("/films", String.class);
+
+        // Фильмы вместе с жанрами — один запрос при любом числе фильмов
+        assertThat(oneFilm.getHeaders().getFirst(SqlStatementCountFilter.HEADER)).isEqualTo("1");
+        assertThat(sixFilms.getHeaders().getFirst(SqlStatementCountFilter.HEADER)).isEqualTo("1");
+
+        Timer timer = meterRegistry.get("storage.method")
+                .tags("storage", "FilmDbStorage", "method", "getAllFilms", "exception", "none")
+                .timer();
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(meterRegistry.get("storage.method.rows")
+                .tags("storage", "FilmDbStorage", "method", "getAllFilms")
+                .summary().totalAmount()).isEqualTo(7);
+        assertThat(meterRegistry.get("http.server.requests.sql.statements")
+                .tags("method", "GET", "uri", "/films")
+                .summary().max()).isEqualTo(1);
+
+        String prometheus = restTemplate.getForObject("/actuator/prometheus", String.class);
+        assertThat(prometheus).contains("storage_method_seconds_bucket")
+                .contains("http_server_requests_sql_statements");
+    }
+
+    @Test
+    void missingFilm_shouldBeRecordedAsZeroRows() {
+        assertThat(restTemplate.getForEntity("/films/100000", String.class).getStatusCode().value()).isEqualTo(404);
+
+        assertThat(meterRegistry.get("storage.method")
+                .tags("storage", "FilmDbStorage", "method", "getFilmById")
+                .timer().count()).isPositive();
+        assertThat(meterRegistry.get("storage.method.rows")
+                .tags("storage", "FilmDbStorage", "method", "getFilmById")
+                .summary().max()).isZero();
+    }
+
+    @Test
+    void responsesWithoutBody_shouldCarryStatementCount() {
+        insertFilm("Liked");
+        int filmId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM films", Integer.class);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "liker@filmorate.ru", "liker", "Liker", LocalDate.of(1990, 1, 1));
+        int userId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+
+        // void-метод контроллера: тела нет, заголовок ставится после обработки запроса
+        ResponseEntity<Void> like = restTemplate.exchange("/films/" + filmId + "/like/" + userId,
+                HttpMethod.PUT, null, Void.class);
+        assertThat(like.getStatusCode().value()).isEqualTo(200);
+        assertThat(like.getHeaders().getFirst(SqlStatementCountFilter.HEADER)).isNotNull();
+        assertThat(Integer.parseInt(like.getHeaders().getFirst(SqlStatementCountFilter.HEADER))).isPositive();
+
+        ResponseEntity<String> film = restTemplate.getForEntity("/films/" + filmId, String.class);
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setIfNoneMatch(film.getHeaders().getETag());
+        ResponseEntity<String> notModified = restTemplate.exchange("/films/" + filmId, HttpMethod.GET,
+                new HttpEntity<>(conditional), String.class);
+        assertThat(notModified.getStatusCode().value()).isEqualTo(304);
+        assertThat(notModified.getHeaders().getFirst(SqlStatementCountFilter.HEADER)).isNotNull();
+    }
+
+    private void insertFilm(String name) {
+        jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                name, "Description", LocalDate.of(2000, 1, 1), 100, 1);
+    }
+}
@@ -6,18 +6,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserDbStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
 @Import(UserDbStorage.class)
-@Sql(scripts = {"/schema.sql", "/data.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 class UserDbStorageTest {
 
     @Autowired
@@ -50,6 +49,19 @@ class UserDbStorageTest {
         assertThat(users).extracting(User::getEmail).contains("user1@filmorate.ru", "user2@filmorate.ru", "user3@filmorate.ru");
     }
 
+    @Test
+    void getUsersPage_shouldReturnUsersAfterCursor() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(userDbStorage.createUser(User.builder()
+                    .email("p" + i + "@f.ru").login("p" + i).birthday(LocalDate.now()).build()).getId());
+        }
+
+        assertThat(userDbStorage.getUsersPage(0, 2)).extracting(User::getId).containsExactly(ids.get(0), ids.get(1));
+        assertThat(userDbStorage.getUsersPage(ids.get(1), 2)).extracting(User::getId).containsExactly(ids.get(2));
+        assertThat(userDbStorage.getUsersPage(ids.get(2), 2)).isEmpty();
+    }
+
     @Test
     void createUser_shouldInsertUserIntoDatabase() {
         User user = User.builder()
@@ -137,6 +149,28 @@ class UserDbStorageTest {
         assertThat(friends).isEmpty();
     }
 
+    @Test
+    void getFriendsPage_shouldReturnFriendsAfterCursorOrNullForUnknownUser() {
+        User user = userDbStorage.createUser(User.builder()
+                .email("u1@f.ru").login("u1").birthday(LocalDate.now()).build());
+        User friend1 = userDbStorage.createUser(User.builder()
+                .email("f1@f.ru").login("f1").birthday(LocalDate.now()).build());
+        User friend2 = userDbStorage.createUser(User.builder()
+                .email("f2@f.ru").login("f2").birthday(LocalDate.now()).build());
+        User friend3 = userDbStorage.createUser(User.builder()
+                .email("f3@f.ru").login("f3").birthday(LocalDate.now()).build());
+        userDbStorage.addFriend(user.getId(), friend3.getId());
+        userDbStorage.addFriend(user.getId(), friend1.getId());
+        userDbStorage.addFriend(user.getId(), friend2.getId());
+
+        assertThat(userDbStorage.getFriendsPage(user.getId(), 0, 2)).extracting(User::getId)
+                .containsExactly(friend1.getId(), friend2.getId());
+        assertThat(userDbStorage.getFriendsPage(user.getId(), friend2.getId(), 2)).extracting(User::getId)
+                .containsExactly(friend3.getId());
+        assertThat(userDbStorage.getFriendsPage(friend1.getId(), 0, 10)).isEmpty();
+        assertThat(userDbStorage.getFriendsPage(999, 0, 10)).isNull();
+    }
+
     @Test
     void getCommonFriends_shouldReturnCommonFriends() {
         User user1 = userDbStorage.createUser(User.builder()
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.ConcurrencyLimitingDataSource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "filmorate.jdbc.limiter.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=6",
+        "spring.datasource.url=jdbc:h2:mem:virtual-threads;DB_CLOSE_DELAY=-1"})
+class VirtualThreadModeTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void virtualThreadMode_shouldServeRequestsThroughLimiterSizedByPool() throws Exception {
+        ConcurrencyLimitingDataSource limiter = dataSource.unwrap(ConcurrencyLimitingDataSource.class);
+        assertThat(limiter.getMaxConcurrency()).isEqualTo(6);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM genres", Integer.class)).isPositive();
+
+        assertThat(restTemplate.getForEntity("/films", String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(meterRegistry.get("jdbc.limiter.max").gauge().value()).isEqualTo(6.0);
+        assertThat(meterRegistry.find("hikaricp.connections.active").gauge()).isNotNull();
+        assertThat(limiter.getActiveConnections()).isZero();
+    }
+}
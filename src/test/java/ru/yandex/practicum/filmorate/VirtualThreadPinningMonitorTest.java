@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.VirtualThreadPinningMonitor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final Object lock = new Object();
+
+    @Test
+    void blockingInsideSynchronized_shouldBeRecordedWithCulpritFrame() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(registry, 10);
+        monitor.start();
+        try {
+            Thread.ofVirtual().start(this::sleepWhileHoldingMonitor).join();
+
+            // События JFR доставляются потоку записи с задержкой около секунды
+            Timer pinned = null;
+            for (int i = 0; i < 100 && pinned == null; i++) {
+                pinned = registry.find("jvm.threads.virtual.pinned").timer();
+                Thread.sleep(100);
+            }
+            assertThat(pinned).isNotNull();
+            assertThat(pinned.count()).isPositive();
+            assertThat(pinned.getId().getTag("frame")).contains(VirtualThreadPinningMonitorTest.class.getName());
+        } finally {
+            monitor.stop();
+        }
+    }
+
+    private void sleepWhileHoldingMonitor() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}